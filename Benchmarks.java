@@ -0,0 +1,353 @@
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+
+// Micro-benchmarks for the booking, lookup and login hot paths.
+// Each benchmark runs warm-up iterations, then timed iterations of a fixed length, and reports the
+// mean time per operation with a 99.9% error margin, JMH style. Results are printed as a table and
+// written as JSON (one object per benchmark and parameter set) so runs can be compared over time.
+// Test data is generated in a temporary directory; the application's own files are not touched.
+//
+// Benchmarks:
+//   loadAllBookings   parse a bookings CSV of 1k / 100k / 1M rows
+//   findById          BookingStore primary-key lookup with 1k / 100k / 1M bookings
+//   seatIsAvailable   SeatGrid availability check
+//   seatBookRelease   SeatGrid book + release of one seat
+//   seatFindBest      best block of 4 adjacent free seats in a 1,000-seat hall, 60% sold
+//   login             email lookup + password check with 10k / 1M registered users
+//   reserveContended  hold + release of 2-seat blocks on one showing from many threads
+//
+// Usage: java Benchmarks [--quick] [--filter name] [--out results.json]
+//   --quick drops the 1M-row cases and shortens iterations.
+//   -Dbench.pbkdf2.iterations sets the work factor of the login benchmark (default 10000,
+//   far below production, so the lookup is not lost in the hash).
+//   The 1M-row cases keep their data in memory; give the JVM room, e.g. java -Xmx2g Benchmarks.
+public class Benchmarks {
+    private static final int PBKDF2_ITERATIONS = Integer.getInteger("bench.pbkdf2.iterations", 10000);
+    private static final String PASSWORD = "benchmark-password";
+
+    private final int warmups;
+    private final int iterations;
+    private final long iterationNanos;
+    private final boolean quick;
+    private final String filter;
+    private final Path dataDir;
+    private final List<Result> results = new ArrayList<>();
+
+    static volatile long sink; // Keeps results alive so the JIT cannot drop the measured work
+
+    // One operation of a benchmark
+    private interface Operation {
+        long run() throws Exception;
+    }
+
+    // Outcome of one benchmark with one set of parameters
+    private static final class Result {
+        final String benchmark;
+        final String param;
+        final String paramValue;
+        final int threads;
+        final double[] samples; // ns/op per timed iteration
+
+        Result(String benchmark, String param, String paramValue, int threads, double[] samples) {
+            this.benchmark = benchmark;
+            this.param = param;
+            this.paramValue = paramValue;
+            this.threads = threads;
+            this.samples = samples;
+        }
+
+        double mean() {
+            double sum = 0;
+            for (double sample : samples) {
+                sum += sample;
+            }
+            return sum / samples.length;
+        }
+
+        // Half-width of the 99.9% confidence interval (normal approximation)
+        double error() {
+            if (samples.length < 2) {
+                return 0;
+            }
+            double mean = mean();
+            double squares = 0;
+            for (double sample : samples) {
+                squares += (sample - mean) * (sample - mean);
+            }
+            double stdev = Math.sqrt(squares / (samples.length - 1));
+            return 3.291 * stdev / Math.sqrt(samples.length);
+        }
+    }
+
+    Benchmarks(boolean quick, String filter, Path dataDir) {
+        this.quick = quick;
+        this.filter = filter;
+        this.dataDir = dataDir;
+        this.warmups = quick ? 1 : 3;
+        this.iterations = quick ? 3 : 5;
+        this.iterationNanos = quick ? 500_000_000L : 1_000_000_000L;
+    }
+
+    public static void main(String[] args) throws Exception {
+        boolean quick = false;
+        String filter = null;
+        String outFile = "benchmark-results.json";
+        for (int i = 0; i < args.length; i++) {
+            if (args[i].equals("--quick")) {
+                quick = true;
+            } else if (args[i].equals("--filter") && i + 1 < args.length) {
+                filter = args[++i];
+            } else if (args[i].equals("--out") && i + 1 < args.length) {
+                outFile = args[++i];
+            } else {
+                System.out.println("Usage: java Benchmarks [--quick] [--filter name] [--out results.json]");
+                return;
+            }
+        }
+
+        Path dataDir = Files.createTempDirectory("booking-bench");
+        try {
+            Benchmarks benchmarks = new Benchmarks(quick, filter, dataDir);
+            benchmarks.runAll();
+            benchmarks.printTable(System.out);
+            benchmarks.writeJson(outFile);
+            System.out.println("Results written to " + outFile);
+        } finally {
+            deleteAll(dataDir.toFile());
+        }
+        System.exit(0); // Stop the stores' background threads
+    }
+
+    void runAll() throws Exception {
+        int[] bookingRows = quick ? new int[] {1_000, 100_000} : new int[] {1_000, 100_000, 1_000_000};
+        int[] userCounts = quick ? new int[] {10_000} : new int[] {10_000, 1_000_000};
+
+        for (int rows : bookingRows) {
+            if (selected("loadAllBookings") || selected("findById")) {
+                String file = writeBookings(rows);
+                if (selected("loadAllBookings")) {
+                    measure("loadAllBookings", "rows", rows, 1, () -> My_Bookings.loadAllBookings(file).size());
+                }
+                if (selected("findById")) {
+                    BookingStore store = new BookingStore(new BookingJournal(file, file + ".journal"));
+                    measure("findById", "rows", rows, 1, () -> {
+                        My_Bookings.Booking booking = store.findById(ThreadLocalRandom.current().nextInt(rows) + 1);
+                        return booking != null ? booking.getNumberOfTickets() : 0;
+                    });
+                }
+            }
+        }
+
+        if (selected("seatIsAvailable") || selected("seatBookRelease")) {
+            SeatGrid grid = new SeatGrid(SeatInventory.DEFAULT_ROWS, SeatInventory.DEFAULT_COLS);
+            int capacity = grid.getCapacity();
+            for (int i = 0; i < capacity; i += 3) {
+                grid.book(i);
+            }
+            if (selected("seatIsAvailable")) {
+                measure("seatIsAvailable", "seats", capacity, 1,
+                        () -> grid.isAvailable(ThreadLocalRandom.current().nextInt(capacity)) ? 1 : 0);
+            }
+            if (selected("seatBookRelease")) {
+                measure("seatBookRelease", "seats", capacity, 1, () -> {
+                    int seat = ThreadLocalRandom.current().nextInt(capacity / 3) * 3 + 1; // Never pre-booked
+                    return (grid.book(seat) ? 1 : 0) + (grid.release(seat) ? 1 : 0);
+                });
+            }
+        }
+
+        if (selected("seatFindBest")) {
+            SeatGrid hall = new SeatGrid(25, 40);
+            int capacity = hall.getCapacity();
+            Random random = new Random(42);
+            for (int i = 0; i < capacity; i++) {
+                if (random.nextInt(10) < 6) {
+                    hall.book(i);
+                }
+            }
+            measure("seatFindBest", "seats", capacity, 1, () -> {
+                int[] block = hall.findBestAvailable(4);
+                return block == null ? 0 : block[0];
+            });
+        }
+
+        if (selected("login")) {
+            String stored = PasswordHasher.hashWith(PASSWORD, PBKDF2_ITERATIONS);
+            for (int users : userCounts) {
+                UserDirectory directory = new UserDirectory(writeUsers(users, stored));
+                measure("login", "users", users, 1, () -> {
+                    UserDirectory.UserRecord user = directory.find("user" + ThreadLocalRandom.current().nextInt(users) + "@gmail.com");
+                    return user != null && PasswordHasher.verifyHash(PASSWORD, user.getPassword()) ? 1 : 0;
+                });
+            }
+        }
+
+        if (selected("reserveContended")) {
+            int threads = Math.max(4, Runtime.getRuntime().availableProcessors() * 2);
+            // On an empty store in the data directory, not the application's shared one
+            String file = dataDir.resolve("reservations.csv").toString();
+            SeatInventory inventory = new SeatInventory(new BookingStore(new BookingJournal(file, file + ".journal")));
+            SeatReservations reservations = new SeatReservations(inventory);
+            Showing showing = new Showing("Benchmark Movie", "1:00 PM", "2000-01-01");
+            int capacity = inventory.gridFor(showing).getCapacity();
+            measure("reserveContended", "threads", threads, threads, () -> {
+                int first = ThreadLocalRandom.current().nextInt(capacity - 1);
+                SeatHold hold = reservations.hold(showing, new int[] {first, first + 1}, 1000, 0);
+                if (hold == null) {
+                    return 0; // Lost the race for one of the seats
+                }
+                reservations.release(hold);
+                return 1;
+            });
+        }
+    }
+
+    private boolean selected(String benchmark) {
+        return filter == null || benchmark.toLowerCase().contains(filter.toLowerCase());
+    }
+
+    // Warm up, then time fixed-length iterations on the given number of threads
+    private void measure(String benchmark, String param, int paramValue, int threads, Operation operation) throws Exception {
+        System.out.println("Running " + benchmark + " (" + param + "=" + paramValue + ")...");
+        for (int i = 0; i < warmups; i++) {
+            iteration(threads, operation);
+        }
+        double[] samples = new double[iterations];
+        for (int i = 0; i < iterations; i++) {
+            samples[i] = iteration(threads, operation);
+        }
+        results.add(new Result(benchmark, param, String.valueOf(paramValue), threads, samples));
+    }
+
+    // Run the operation until the iteration time is up (at least once); returns ns per operation
+    private double iteration(int threads, Operation operation) throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try {
+            long start = System.nanoTime();
+            long deadline = start + iterationNanos;
+            List<Future<long[]>> counts = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                counts.add(pool.submit(() -> {
+                    long operations = 0;
+                    long result = 0;
+                    do {
+                        result += operation.run();
+                        operations++;
+                    } while (System.nanoTime() < deadline);
+                    return new long[] {operations, result};
+                }));
+            }
+            long operations = 0;
+            for (Future<long[]> count : counts) {
+                long[] outcome = count.get();
+                operations += outcome[0];
+                sink += outcome[1];
+            }
+            long elapsed = System.nanoTime() - start;
+            // Time per operation as seen by one thread
+            return (double) elapsed * threads / operations;
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    // Test data
+
+    private String writeBookings(int rows) throws IOException {
+        File file = dataDir.resolve("bookings-" + rows + ".csv").toFile();
+        String[] movies = {"The Matrix", "John Wick", "Inception", "Heat", "Alien", "Up"};
+        try (Writer out = new BufferedWriter(new FileWriter(file, StandardCharsets.UTF_8))) {
+            CsvWriter csv = new CsvWriter(out);
+            for (int i = 1; i <= rows; i++) {
+                int tickets = 1 + i % 4;
+                csv.writeRow(String.valueOf(i), movies[i % movies.length], "Customer " + (i % 997),
+                        "user" + (i % 5000) + "@gmail.com", String.valueOf(tickets), CsvWriter.formatPrice(tickets * 50.0),
+                        "2026-01-" + (10 + i % 20), "12:00:00", "7:00 PM", "A" + (1 + i % 10),
+                        i % 10 == 0 ? "Cancelled" : "Confirmed");
+            }
+        }
+        return file.getPath();
+    }
+
+    // Every user shares one password hash, so a million users do not mean a million hashes
+    private String writeUsers(int users, String storedPassword) throws IOException {
+        File file = dataDir.resolve("users-" + users + ".csv").toFile();
+        try (Writer out = new BufferedWriter(new FileWriter(file, StandardCharsets.UTF_8))) {
+            CsvWriter csv = new CsvWriter(out);
+            for (int i = 0; i < users; i++) {
+                csv.writeRow(String.valueOf(i + 1), "user" + i + "@gmail.com", storedPassword,
+                        "User " + i, "2026-01-01", "12:00:00");
+            }
+        }
+        return file.getPath();
+    }
+
+    private static void deleteAll(File file) {
+        File[] children = file.listFiles();
+        if (children != null) {
+            for (File child : children) {
+                deleteAll(child);
+            }
+        }
+        file.delete();
+    }
+
+    // Output
+
+    void printTable(PrintStream out) {
+        out.println();
+        out.println(String.format("%-18s %-10s %8s %16s %14s  %s", "Benchmark", "Param", "Threads", "Score", "Error", "Units"));
+        for (Result result : results) {
+            out.println(String.format("%-18s %-10s %8d %16.1f %14.1f  ns/op", result.benchmark,
+                    result.param + "=" + result.paramValue, result.threads, result.mean(), result.error()));
+        }
+    }
+
+    // Same shape as JMH's JSON output, so existing tooling can read it
+    void writeJson(String outFile) throws IOException {
+        StringBuilder json = new StringBuilder("[\n");
+        for (int i = 0; i < results.size(); i++) {
+            Result result = results.get(i);
+            json.append("  {\n");
+            json.append("    \"benchmark\": \"Benchmarks.").append(result.benchmark).append("\",\n");
+            json.append("    \"mode\": \"avgt\",\n");
+            json.append("    \"threads\": ").append(result.threads).append(",\n");
+            json.append("    \"warmupIterations\": ").append(warmups).append(",\n");
+            json.append("    \"measurementIterations\": ").append(iterations).append(",\n");
+            json.append("    \"params\": { \"").append(result.param).append("\": \"").append(result.paramValue).append("\" },\n");
+            json.append("    \"primaryMetric\": {\n");
+            json.append("      \"score\": ").append(number(result.mean())).append(",\n");
+            json.append("      \"scoreError\": ").append(number(result.error())).append(",\n");
+            json.append("      \"scoreUnit\": \"ns/op\",\n");
+            json.append("      \"rawData\": [[");
+            for (int s = 0; s < result.samples.length; s++) {
+                json.append(s > 0 ? ", " : "").append(number(result.samples[s]));
+            }
+            json.append("]]\n");
+            json.append("    }\n");
+            json.append(i + 1 < results.size() ? "  },\n" : "  }\n");
+        }
+        json.append("]\n");
+        Files.write(Paths.get(outFile), json.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String number(double value) {
+        return String.format(Locale.ROOT, "%.3f", value);
+    }
+}
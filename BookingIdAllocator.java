@@ -0,0 +1,88 @@
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Monotonic, crash-safe booking ID allocator.
+// IDs are reserved from disk in blocks: movie_bookings.seq holds the highest ID that may have
+// been handed out, and is synced before any ID from a new block is used. After a restart the
+// allocator continues above that mark, so IDs are never reused (a crash can only leave a gap).
+// Within a block, IDs are handed out lock-free with a CAS.
+// The block size is set with -Dbooking.id.block (default 100).
+public class BookingIdAllocator {
+    static final String SEQUENCE_FILE = "movie_bookings.seq";
+    static final int BLOCK_SIZE = Integer.getInteger("booking.id.block", 100);
+
+    private static BookingIdAllocator instance;
+
+    private final Path sequenceFile;
+    private final AtomicInteger next;
+    private volatile int limit; // Highest reserved ID
+
+    public static synchronized BookingIdAllocator getInstance() {
+        if (instance == null) {
+            instance = new BookingIdAllocator(SEQUENCE_FILE, BookingStore.getInstance().getMaxBookingId());
+        }
+        return instance;
+    }
+
+    // highestKnownId seeds the sequence the first time, when no sequence file exists yet
+    BookingIdAllocator(String sequenceFile, int highestKnownId) {
+        this.sequenceFile = Paths.get(sequenceFile);
+        int reserved = Math.max(readSequence(), highestKnownId);
+        this.next = new AtomicInteger(reserved + 1);
+        this.limit = reserved;
+    }
+
+    public int nextId() {
+        while (true) {
+            int id = next.get();
+            if (id <= limit) {
+                if (next.compareAndSet(id, id + 1)) {
+                    return id;
+                }
+            } else {
+                reserveBlock(id);
+            }
+        }
+    }
+
+    // Persist a new high-water mark before handing out IDs up to it
+    private synchronized void reserveBlock(int id) {
+        if (id <= limit) {
+            return; // Another thread already reserved it
+        }
+        int newLimit = id - 1 + BLOCK_SIZE;
+        try {
+            writeSequence(newLimit);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not reserve booking IDs", e);
+        }
+        limit = newLimit;
+    }
+
+    private int readSequence() {
+        try {
+            if (Files.exists(sequenceFile)) {
+                return Integer.parseInt(new String(Files.readAllBytes(sequenceFile), StandardCharsets.UTF_8).trim());
+            }
+        } catch (IOException | NumberFormatException e) {
+            System.out.println("Error reading booking ID sequence: " + e.getMessage());
+        }
+        return 0;
+    }
+
+    private void writeSequence(int value) throws IOException {
+        Path tmp = Paths.get(sequenceFile + ".tmp");
+        try (FileOutputStream out = new FileOutputStream(tmp.toFile())) {
+            out.write((value + "\n").getBytes(StandardCharsets.UTF_8));
+            out.getFD().sync();
+        }
+        Files.move(tmp, sequenceFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+}
@@ -0,0 +1,207 @@
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+
+// CSV booking storage: movie_bookings.csv snapshot plus an append-only journal of changes.
+// New bookings are appended to the snapshot through a GroupCommitWriter, so concurrent
+// bookings share one fsync. Status changes and ticket-count edits are written
+// as one small journal record each instead of rewriting movie_bookings.csv, through a second
+// GroupCommitWriter, so a change is on disk before the caller is told it succeeded. The records hold
+// absolute values, so replaying them on top of the snapshot is idempotent, and compact() folds
+// them into a fresh snapshot.
+//
+// Record formats:
+//   STATUS,BookingID,Status
+//   TICKETS,BookingID,Tickets,TotalPrice
+public class BookingJournal implements BookingStorage {
+    static final String JOURNAL_FILE = "movie_bookings.journal";
+    static final int COMPACTION_THRESHOLD = 500; // Records before a compaction is worth it
+
+    private final String snapshotFile;
+    private final String journalFile;
+    private GroupCommitWriter journalWriter; // Opened on first use, closed by compact()
+    private GroupCommitWriter bookingWriter; // Snapshot appends, opened on first use
+    private final Map<Integer, CompletableFuture<Void>> pendingAppends = new ConcurrentHashMap<>(); // By booking ID, until durable
+    private final Set<My_Bookings.Booking> failedAppends = Collections.synchronizedSet(Collections.newSetFromMap(new IdentityHashMap<>()));
+    private int recordCount = 0;
+
+    public BookingJournal(String snapshotFile, String journalFile) {
+        this.snapshotFile = snapshotFile;
+        this.journalFile = journalFile;
+    }
+
+    @Override
+    public synchronized List<My_Bookings.Booking> loadAll() {
+        List<My_Bookings.Booking> bookings = My_Bookings.loadAllBookings(snapshotFile);
+        Map<Integer, My_Bookings.Booking> bookingsById = new HashMap<>();
+        for (My_Bookings.Booking booking : bookings) {
+            bookingsById.putIfAbsent(booking.getBookingId(), booking);
+        }
+        replay(bookingsById);
+        return bookings;
+    }
+
+    @Override
+    public void append(My_Bookings.Booking booking) throws IOException {
+        GroupCommitWriter.await(appendAsync(booking));
+    }
+
+    // Queue the booking on the snapshot's group-commit writer; the future completes once it is on disk
+    @Override
+    public synchronized CompletableFuture<Void> appendAsync(My_Bookings.Booking booking) {
+        try {
+            CompletableFuture<Void> durable = bookingWriter().write(booking.toCSV() + "\n");
+            pendingAppends.put(booking.getBookingId(), durable);
+            // Noted before flush() can return, so compact() leaves the booking out
+            durable.whenComplete((done, error) -> {
+                pendingAppends.remove(booking.getBookingId(), durable);
+                if (error != null) {
+                    failedAppends.add(booking);
+                }
+            });
+            return durable;
+        } catch (IOException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    // Fold all journal records into the bookings loaded from the snapshot
+    private void replay(Map<Integer, My_Bookings.Booking> bookingsById) {
+        File file = new File(journalFile);
+        if (!file.exists()) {
+            return;
+        }
+
+        try (CsvReader reader = new CsvReader(new BufferedReader(new FileReader(file, StandardCharsets.UTF_8)))) {
+            while (reader.next()) {
+                recordCount++;
+                try {
+                    if (reader.fieldCount() < 3) {
+                        continue;
+                    }
+                    My_Bookings.Booking booking = bookingsById.get(reader.getInt(1));
+                    if (booking == null) {
+                        continue;
+                    }
+                    if (reader.fieldEqualsIgnoreCase(0, "STATUS")) {
+                        booking.setStatus(reader.getString(2));
+                    } else if (reader.fieldEqualsIgnoreCase(0, "TICKETS") && reader.fieldCount() >= 4) {
+                        booking.restoreTickets(reader.getInt(2), reader.getDouble(3));
+                    }
+                } catch (Exception e) {
+                    // A torn last record from a crash is skipped
+                    System.out.println("Error parsing journal record: " + e.getMessage());
+                }
+            }
+        } catch (IOException e) {
+            System.out.println("Error reading booking journal: " + e.getMessage());
+        }
+    }
+
+    // Changes must not reach the journal before the booking they change reaches the snapshot
+    @Override
+    public synchronized void recordStatus(int bookingId, String status) throws IOException {
+        awaitAppend(bookingId);
+        append(CsvWriter.formatRow("STATUS", String.valueOf(bookingId), status) + "\n");
+    }
+
+    @Override
+    public synchronized void recordTickets(int bookingId, int tickets, double totalPrice) throws IOException {
+        awaitAppend(bookingId);
+        append(CsvWriter.formatRow("TICKETS", String.valueOf(bookingId), String.valueOf(tickets), CsvWriter.formatPrice(totalPrice)) + "\n");
+    }
+
+    @Override
+    public synchronized boolean needsCompaction() {
+        return recordCount >= COMPACTION_THRESHOLD;
+    }
+
+    // Write the current booking state to a fresh snapshot, swap it in atomically,
+    // then start an empty journal. A crash before the swap leaves the old snapshot
+    // and journal intact; a crash after it only replays records already folded in.
+    // The booking writer is drained and closed first, since it still points at the old file;
+    // the next append opens a new one. Bookings whose append failed are left out.
+    @Override
+    public synchronized void compact(List<My_Bookings.Booking> bookings) throws IOException {
+        Path snapshot = Paths.get(snapshotFile);
+        Path tmp = Paths.get(snapshotFile + ".tmp");
+        closeBookingWriter();
+
+        try (FileOutputStream out = new FileOutputStream(tmp.toFile());
+             Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8))) {
+            for (My_Bookings.Booking booking : bookings) {
+                if (failedAppends.contains(booking)) {
+                    continue;
+                }
+                writer.write(booking.toCSV());
+                writer.write("\n");
+            }
+            writer.flush();
+            out.getFD().sync();
+        }
+        Files.move(tmp, snapshot, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+        closeJournal();
+        new FileOutputStream(journalFile).close(); // Truncate
+        recordCount = 0;
+        failedAppends.clear();
+    }
+
+    private GroupCommitWriter bookingWriter() throws IOException {
+        if (bookingWriter == null) {
+            bookingWriter = new GroupCommitWriter(Paths.get(snapshotFile));
+        }
+        return bookingWriter;
+    }
+
+    // Only waits when the booking was created moments ago and is still in the write queue
+    private void awaitAppend(int bookingId) throws IOException {
+        CompletableFuture<Void> pending = pendingAppends.get(bookingId);
+        if (pending != null) {
+            GroupCommitWriter.await(pending);
+        }
+    }
+
+    private void closeBookingWriter() throws IOException {
+        if (bookingWriter != null) {
+            GroupCommitWriter writer = bookingWriter;
+            bookingWriter = null;
+            writer.close();
+        }
+    }
+
+    // Returns once the record is fsynced
+    private void append(String record) throws IOException {
+        if (journalWriter == null) {
+            journalWriter = new GroupCommitWriter(Paths.get(journalFile));
+        }
+        GroupCommitWriter.await(journalWriter.write(record));
+        recordCount++;
+    }
+
+    private void closeJournal() throws IOException {
+        if (journalWriter != null) {
+            GroupCommitWriter writer = journalWriter;
+            journalWriter = null;
+            writer.close();
+        }
+    }
+}
@@ -0,0 +1,106 @@
+import java.util.Collections;
+import java.util.List;
+
+// Filters, sort order and paging for BookingStore.query().
+// Every filter is optional; unset filters match everything. Pages are cursor based: pass the
+// cursor of one page to after() to get the next, so deep pages cost the same as the first.
+//
+//   BookingQuery.Page page = store.query(new BookingQuery().email(email).status("Confirmed").limit(10));
+//   page = store.query(new BookingQuery().email(email).status("Confirmed").limit(10).after(page.getNextCursor()));
+public class BookingQuery {
+    public static final int DEFAULT_LIMIT = 20;
+    static final long NO_CURSOR = Long.MIN_VALUE;
+
+    // Bookings are ordered by booking ID, which grows with booking time
+    public enum Order { OLDEST_FIRST, NEWEST_FIRST }
+
+    private String email;
+    private String movie;
+    private String status;
+    private String fromDate; // yyyy-MM-dd, inclusive
+    private String toDate;   // yyyy-MM-dd, inclusive
+    private Order order = Order.NEWEST_FIRST;
+    private long cursor = NO_CURSOR;
+    private int limit = DEFAULT_LIMIT;
+
+    public BookingQuery email(String email) {
+        this.email = email;
+        return this;
+    }
+
+    public BookingQuery movie(String movie) {
+        this.movie = movie;
+        return this;
+    }
+
+    public BookingQuery status(String status) {
+        this.status = status;
+        return this;
+    }
+
+    // Bookings made between the two dates (yyyy-MM-dd, both inclusive); either may be null
+    public BookingQuery dateRange(String fromDate, String toDate) {
+        this.fromDate = fromDate;
+        this.toDate = toDate;
+        return this;
+    }
+
+    public BookingQuery order(Order order) {
+        this.order = order;
+        return this;
+    }
+
+    // Continue after the last booking of a previous page
+    public BookingQuery after(long cursor) {
+        this.cursor = cursor;
+        return this;
+    }
+
+    public BookingQuery limit(int limit) {
+        if (limit <= 0) {
+            throw new IllegalArgumentException("Page size must be positive: " + limit);
+        }
+        this.limit = limit;
+        return this;
+    }
+
+    public String getEmail() { return email; }
+    public String getMovie() { return movie; }
+    public String getStatus() { return status; }
+    public String getFromDate() { return fromDate; }
+    public String getToDate() { return toDate; }
+    public Order getOrder() { return order; }
+    public long getCursor() { return cursor; }
+    public int getLimit() { return limit; }
+
+    // Filters that are not answered by an index
+    boolean matches(My_Bookings.Booking booking) {
+        if (status != null && !status.equalsIgnoreCase(booking.getStatus())) {
+            return false;
+        }
+        if (fromDate != null && booking.getBookingDay().compareTo(fromDate) < 0) {
+            return false;
+        }
+        if (toDate != null && booking.getBookingDay().compareTo(toDate) > 0) {
+            return false;
+        }
+        return true;
+    }
+
+    // One page of results
+    public static class Page {
+        private final List<My_Bookings.Booking> bookings;
+        private final long nextCursor;
+        private final boolean hasMore;
+
+        Page(List<My_Bookings.Booking> bookings, long nextCursor, boolean hasMore) {
+            this.bookings = Collections.unmodifiableList(bookings);
+            this.nextCursor = nextCursor;
+            this.hasMore = hasMore;
+        }
+
+        public List<My_Bookings.Booking> getBookings() { return bookings; }
+        public long getNextCursor() { return nextCursor; } // Pass to after() for the next page
+        public boolean hasMore() { return hasMore; }
+    }
+}
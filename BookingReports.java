@@ -0,0 +1,668 @@
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileReader;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.PrintStream;
+import java.io.RandomAccessFile;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+// Sales reports computed by streaming the bookings once.
+// Reports revenue, tickets, bookings and cancellations per movie, per showtime and per day,
+// plus overall totals and cancellation rates. Rows are never kept: each one is folded into
+// primitive counters keyed by small int IDs (movies, showtimes and days are interned on first
+// sight), so memory depends on the number of distinct movies/showtimes/days, not on history size.
+//
+// The CSV file is cut into newline-aligned byte ranges that are aggregated in parallel with
+// fork/join and then merged. Changes in the booking journal (cancellations, ticket edits) are
+// folded in as rows stream past; the journal is compacted regularly, so it is small enough to
+// hold in memory. As in BookingJournal, a change applies to the first row with its booking ID
+// only, so rows with a changed ID are held back until the ranges are merged in file order.
+// With -Dbooking.storage=mapped the binary store is scanned instead.
+//
+// Ranges are cut at line breaks, which assumes no field contains one; the booking screens
+// never write such fields. Files smaller than one range are read in one pass.
+//
+// Usage: java BookingReports [--format csv|json] [--threads n] [--file bookings.csv]
+public class BookingReports {
+    private static final long MIN_CHUNK_BYTES = 16L * 1024 * 1024;
+
+    // Counter columns
+    private static final int BOOKINGS = 0;
+    private static final int TICKETS = 1;
+    private static final int REVENUE_CENTS = 2; // Confirmed bookings only
+    private static final int CANCELLATIONS = 3;
+    private static final int COUNTERS = 4;
+
+    private final String bookingsFile;
+    private final String journalFile;
+    private final int threads;
+
+    public BookingReports(String bookingsFile, String journalFile, int threads) {
+        this.bookingsFile = bookingsFile;
+        this.journalFile = journalFile;
+        this.threads = Math.max(1, threads);
+    }
+
+    public static void main(String[] args) throws IOException {
+        String format = "csv";
+        String file = My_Bookings.BOOKINGS_FILE;
+        int threads = Runtime.getRuntime().availableProcessors();
+        for (int i = 0; i < args.length; i++) {
+            if (args[i].equals("--format") && i + 1 < args.length) {
+                format = args[++i];
+            } else if (args[i].equals("--threads") && i + 1 < args.length) {
+                threads = Integer.parseInt(args[++i]);
+            } else if (args[i].equals("--file") && i + 1 < args.length) {
+                file = args[++i];
+            } else {
+                System.out.println("Usage: java BookingReports [--format csv|json] [--threads n] [--file bookings.csv]");
+                return;
+            }
+        }
+
+        BookingReports reports = new BookingReports(file, BookingJournal.JOURNAL_FILE, threads);
+        Totals totals;
+        if ("mapped".equals(System.getProperty("booking.storage"))) {
+            totals = reports.aggregateMapped(MappedBookingStore.DATA_FILE, MappedBookingStore.DICTIONARY_FILE,
+                    MappedBookingStore.TEXT_FILE);
+        } else {
+            totals = reports.aggregate();
+        }
+
+        if (format.equalsIgnoreCase("json")) {
+            writeJson(totals, System.out);
+        } else {
+            writeCsv(totals, System.out);
+        }
+        System.out.flush();
+    }
+
+    // Stream the CSV bookings file (plus journal) once
+    public Totals aggregate() throws IOException {
+        Map<Integer, JournalChange> changes = loadJournal(journalFile);
+        File file = new File(bookingsFile);
+        if (!file.exists()) {
+            return new Totals();
+        }
+
+        long[] bounds = chunkBounds(file);
+        if (bounds.length == 2) {
+            return aggregateRange(file, 0, bounds[1], changes).applyChanges(changes);
+        }
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        try {
+            return pool.invoke(new RangeTask(file, bounds, 0, bounds.length - 1, changes)).applyChanges(changes);
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    // Scan the binary booking store once, read-only, so a running app is not disturbed
+    public Totals aggregateMapped(String dataFile, String dictionaryFile, String textFile) throws IOException {
+        Totals totals = new Totals();
+        if (!new File(dataFile).exists()) {
+            return totals;
+        }
+        MappedBookingStore store = MappedBookingStore.openReadOnly(dataFile, dictionaryFile, textFile);
+        try {
+            store.forEach(booking -> totals.add(booking.getMovieName(), booking.getShowtime(), booking.getBookingDay(),
+                    booking.getNumberOfTickets(), Math.round(booking.getTotalPrice() * 100),
+                    "Cancelled".equalsIgnoreCase(booking.getStatus())));
+        } finally {
+            store.close();
+        }
+        return totals;
+    }
+
+    // Aggregated counters for one report run
+    public static final class Totals {
+        private final KeyTable movies = new KeyTable();
+        private final KeyTable showtimes = new KeyTable();
+        private final KeyTable days = new KeyTable();
+        private final long[] overall = new long[COUNTERS];
+        private long skippedRows = 0;
+        // First row in this part of the file for each booking ID the journal changes,
+        // not counted yet: an earlier part may hold an earlier row with the same ID
+        private final Map<Integer, HeldRow> heldRows = new HashMap<>();
+
+        void add(CharSequence movie, CharSequence showtime, CharSequence day, int tickets, long cents, boolean cancelled) {
+            add(overall, 0, tickets, cents, cancelled);
+            // Look the ID up first: adding a new key can replace the counters array
+            int movieAt = movies.idFor(movie) * COUNTERS;
+            add(movies.counters, movieAt, tickets, cents, cancelled);
+            int showtimeAt = showtimes.idFor(showtime) * COUNTERS;
+            add(showtimes.counters, showtimeAt, tickets, cents, cancelled);
+            int dayAt = days.idFor(day) * COUNTERS;
+            add(days.counters, dayAt, tickets, cents, cancelled);
+        }
+
+        private static void add(long[] counters, int at, int tickets, long cents, boolean cancelled) {
+            counters[at + BOOKINGS]++;
+            if (cancelled) {
+                counters[at + CANCELLATIONS]++;
+            } else {
+                counters[at + TICKETS] += tickets;
+                counters[at + REVENUE_CENTS] += cents;
+            }
+        }
+
+        // Fold in the totals for the part of the file that follows this one
+        Totals merge(Totals other) {
+            for (Map.Entry<Integer, HeldRow> entry : other.heldRows.entrySet()) {
+                HeldRow row = entry.getValue();
+                if (heldRows.containsKey(entry.getKey())) {
+                    // A later duplicate: the journal change belongs to the row held here
+                    add(row.movie, row.showtime, row.day, row.tickets, row.cents, row.cancelled);
+                } else {
+                    heldRows.put(entry.getKey(), row);
+                }
+            }
+            for (int c = 0; c < COUNTERS; c++) {
+                overall[c] += other.overall[c];
+            }
+            movies.merge(other.movies);
+            showtimes.merge(other.showtimes);
+            days.merge(other.days);
+            skippedRows += other.skippedRows;
+            return this;
+        }
+
+        // Count the held rows with their journal changes applied, once the whole file is merged
+        Totals applyChanges(Map<Integer, JournalChange> changes) {
+            for (Map.Entry<Integer, HeldRow> entry : heldRows.entrySet()) {
+                HeldRow row = entry.getValue();
+                JournalChange change = changes.get(entry.getKey());
+                boolean cancelled = change.status != null ? change.status.equalsIgnoreCase("Cancelled") : row.cancelled;
+                int tickets = change.tickets >= 0 ? change.tickets : row.tickets;
+                long cents = change.tickets >= 0 ? change.cents : row.cents;
+                add(row.movie, row.showtime, row.day, tickets, cents, cancelled);
+            }
+            heldRows.clear();
+            return this;
+        }
+
+        public long getBookings() { return overall[BOOKINGS]; }
+        public long getTickets() { return overall[TICKETS]; }
+        public long getRevenueCents() { return overall[REVENUE_CENTS]; }
+        public long getCancellations() { return overall[CANCELLATIONS]; }
+        public long getSkippedRows() { return skippedRows; }
+    }
+
+    // A row whose booking ID has a journal change, as read from the CSV
+    private static final class HeldRow {
+        final String movie;
+        final String showtime;
+        final String day;
+        final int tickets;
+        final long cents;
+        final boolean cancelled;
+
+        HeldRow(String movie, String showtime, String day, int tickets, long cents, boolean cancelled) {
+            this.movie = movie;
+            this.showtime = showtime;
+            this.day = day;
+            this.tickets = tickets;
+            this.cents = cents;
+            this.cancelled = cancelled;
+        }
+    }
+
+    // Fork/join over newline-aligned byte ranges: split the range list in half until one range is left
+    private final class RangeTask extends RecursiveTask<Totals> {
+        private static final long serialVersionUID = 1L;
+
+        private final File file;
+        private final long[] bounds;
+        private final int from;
+        private final int to;
+        private final Map<Integer, JournalChange> changes;
+
+        RangeTask(File file, long[] bounds, int from, int to, Map<Integer, JournalChange> changes) {
+            this.file = file;
+            this.bounds = bounds;
+            this.from = from;
+            this.to = to;
+            this.changes = changes;
+        }
+
+        @Override
+        protected Totals compute() {
+            if (to - from == 1) {
+                try {
+                    return aggregateRange(file, bounds[from], bounds[to], changes);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+            int middle = (from + to) >>> 1;
+            RangeTask left = new RangeTask(file, bounds, from, middle, changes);
+            RangeTask right = new RangeTask(file, bounds, middle, to, changes);
+            left.fork();
+            Totals later = right.compute();
+            return left.join().merge(later);
+        }
+    }
+
+    private Totals aggregateRange(File file, long start, long end, Map<Integer, JournalChange> changes) throws IOException {
+        Totals totals = new Totals();
+        try (FileInputStream in = new FileInputStream(file);
+             CsvReader row = new CsvReader(rangeReader(in, start, end))) {
+            while (row.next()) {
+                if (row.fieldCount() < 9) {
+                    if (row.fieldCount() > 1 || !row.isEmpty(0)) {
+                        totals.skippedRows++;
+                    }
+                    continue;
+                }
+                int bookingId;
+                int tickets;
+                long cents;
+                try {
+                    bookingId = row.getInt(0);
+                    tickets = row.getInt(4);
+                    cents = parseCents(row.trimmedField(5));
+                } catch (NumberFormatException e) {
+                    totals.skippedRows++; // Header or damaged row
+                    continue;
+                }
+                boolean cancelled = row.fieldCount() >= 11 && row.fieldEqualsIgnoreCase(10, "Cancelled");
+
+                if (changes.containsKey(bookingId) && !totals.heldRows.containsKey(bookingId)) {
+                    totals.heldRows.put(bookingId, new HeldRow(row.trimmedField(1).toString(), row.trimmedField(8).toString(),
+                            row.trimmedField(6).toString(), tickets, cents, cancelled));
+                    continue;
+                }
+                totals.add(row.trimmedField(1), row.trimmedField(8), row.trimmedField(6), tickets, cents, cancelled);
+            }
+        }
+        return totals;
+    }
+
+    // Range boundaries: roughly equal byte ranges, each moved forward to just after a line break
+    private long[] chunkBounds(File file) throws IOException {
+        long size = file.length();
+        long chunk = Math.max(MIN_CHUNK_BYTES, size / (threads * 4L));
+        List<Long> bounds = new ArrayList<>();
+        bounds.add(0L);
+        try (RandomAccessFile raf = new RandomAccessFile(file, "r")) {
+            byte[] buffer = new byte[8192];
+            long next = chunk;
+            while (next < size) {
+                long boundary = -1;
+                raf.seek(next);
+                long position = next;
+                int n;
+                while (boundary < 0 && (n = raf.read(buffer)) > 0) {
+                    for (int i = 0; i < n; i++) {
+                        if (buffer[i] == '\n') {
+                            boundary = position + i + 1;
+                            break;
+                        }
+                    }
+                    position += n;
+                }
+                if (boundary < 0 || boundary >= size) {
+                    break;
+                }
+                bounds.add(boundary);
+                next = boundary + chunk;
+            }
+        }
+        bounds.add(size);
+
+        long[] result = new long[bounds.size()];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = bounds.get(i);
+        }
+        return result;
+    }
+
+    // A status or ticket change from the journal; later records win
+    private static final class JournalChange {
+        String status;
+        int tickets = -1;
+        long cents;
+    }
+
+    private static Map<Integer, JournalChange> loadJournal(String journalFile) {
+        Map<Integer, JournalChange> changes = new HashMap<>();
+        File file = new File(journalFile);
+        if (!file.exists()) {
+            return changes;
+        }
+        try (CsvReader reader = new CsvReader(new BufferedReader(new FileReader(file, StandardCharsets.UTF_8)))) {
+            while (reader.next()) {
+                try {
+                    if (reader.fieldCount() < 3) {
+                        continue;
+                    }
+                    JournalChange change = changes.computeIfAbsent(reader.getInt(1), id -> new JournalChange());
+                    if (reader.fieldEqualsIgnoreCase(0, "STATUS")) {
+                        change.status = reader.getString(2);
+                    } else if (reader.fieldEqualsIgnoreCase(0, "TICKETS") && reader.fieldCount() >= 4) {
+                        change.tickets = reader.getInt(2);
+                        change.cents = parseCents(reader.trimmedField(3));
+                    }
+                } catch (NumberFormatException e) {
+                    // A torn last record from a crash is skipped
+                }
+            }
+        } catch (IOException e) {
+            System.out.println("Error reading booking journal: " + e.getMessage());
+        }
+        return changes;
+    }
+
+    // "123.4" -> 12340 without going through a double; rounds half-up past two decimals
+    static long parseCents(CharSequence price) {
+        int length = price.length();
+        if (length == 0) {
+            throw new NumberFormatException("Empty price");
+        }
+        int i = 0;
+        boolean negative = price.charAt(0) == '-';
+        if (negative || price.charAt(0) == '+') {
+            i++;
+        }
+        long whole = 0;
+        long fraction = 0;
+        int decimals = 0;
+        boolean roundUp = false;
+        boolean seenDigit = false;
+        boolean seenPoint = false;
+        for (; i < length; i++) {
+            char c = price.charAt(i);
+            if (c == '.' && !seenPoint) {
+                seenPoint = true;
+            } else if (c >= '0' && c <= '9') {
+                seenDigit = true;
+                if (!seenPoint) {
+                    whole = whole * 10 + (c - '0');
+                } else if (decimals < 2) {
+                    fraction = fraction * 10 + (c - '0');
+                    decimals++;
+                } else if (decimals == 2) {
+                    roundUp = c >= '5';
+                    decimals++;
+                }
+            } else {
+                throw new NumberFormatException("Not a price: " + price);
+            }
+        }
+        if (!seenDigit) {
+            throw new NumberFormatException("Not a price: " + price);
+        }
+        if (decimals == 1) {
+            fraction *= 10;
+        }
+        long cents = whole * 100 + fraction + (roundUp ? 1 : 0);
+        return negative ? -cents : cents;
+    }
+
+    // Output
+
+    public static void writeCsv(Totals totals, PrintStream out) {
+        StringBuilder text = new StringBuilder(4096);
+        CsvWriter.appendRow(text, "report", "key", "bookings", "tickets", "revenue", "cancellations", "cancellation_rate");
+        text.append('\n');
+        csvRow(text, "total", "all", totals.overall, 0);
+        for (int id : totals.movies.idsByRevenue()) {
+            csvRow(text, "movie", totals.movies.keys[id], totals.movies.counters, id * COUNTERS);
+        }
+        for (int id : totals.showtimes.idsByKey()) {
+            csvRow(text, "showtime", totals.showtimes.keys[id], totals.showtimes.counters, id * COUNTERS);
+        }
+        for (int id : totals.days.idsByKey()) {
+            csvRow(text, "day", totals.days.keys[id], totals.days.counters, id * COUNTERS);
+        }
+        out.print(text);
+        if (totals.skippedRows > 0) {
+            System.out.println("Skipped " + totals.skippedRows + " unreadable rows");
+        }
+    }
+
+    public static void writeJson(Totals totals, PrintStream out) {
+        StringBuilder text = new StringBuilder(4096);
+        text.append("{\n  \"total\": ");
+        jsonObject(text, null, totals.overall, 0);
+        text.append(",\n  \"skippedRows\": ").append(totals.skippedRows);
+        jsonSection(text, "movies", totals.movies, totals.movies.idsByRevenue());
+        jsonSection(text, "showtimes", totals.showtimes, totals.showtimes.idsByKey());
+        jsonSection(text, "days", totals.days, totals.days.idsByKey());
+        text.append("\n}\n");
+        out.print(text);
+    }
+
+    private static void csvRow(StringBuilder text, String report, String key, long[] counters, int at) {
+        CsvWriter.appendRow(text, report, key,
+                String.valueOf(counters[at + BOOKINGS]),
+                String.valueOf(counters[at + TICKETS]),
+                formatCents(counters[at + REVENUE_CENTS]),
+                String.valueOf(counters[at + CANCELLATIONS]),
+                cancellationRate(counters, at));
+        text.append('\n');
+    }
+
+    private static void jsonSection(StringBuilder text, String name, KeyTable table, int[] ids) {
+        text.append(",\n  \"").append(name).append("\": [");
+        for (int i = 0; i < ids.length; i++) {
+            text.append(i == 0 ? "\n    " : ",\n    ");
+            jsonObject(text, table.keys[ids[i]], table.counters, ids[i] * COUNTERS);
+        }
+        text.append(ids.length == 0 ? "]" : "\n  ]");
+    }
+
+    private static void jsonObject(StringBuilder text, String key, long[] counters, int at) {
+        text.append('{');
+        if (key != null) {
+            text.append("\"key\": ");
+            jsonString(text, key);
+            text.append(", ");
+        }
+        text.append("\"bookings\": ").append(counters[at + BOOKINGS])
+            .append(", \"tickets\": ").append(counters[at + TICKETS])
+            .append(", \"revenue\": ").append(formatCents(counters[at + REVENUE_CENTS]))
+            .append(", \"cancellations\": ").append(counters[at + CANCELLATIONS])
+            .append(", \"cancellationRate\": ").append(cancellationRate(counters, at))
+            .append('}');
+    }
+
+    private static void jsonString(StringBuilder text, String value) {
+        text.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"' || c == '\\') {
+                text.append('\\').append(c);
+            } else if (c < 0x20) {
+                text.append(String.format("\\u%04x", (int) c));
+            } else {
+                text.append(c);
+            }
+        }
+        text.append('"');
+    }
+
+    private static String formatCents(long cents) {
+        long abs = Math.abs(cents);
+        long fraction = abs % 100;
+        return (cents < 0 ? "-" : "") + (abs / 100) + (fraction < 10 ? ".0" : ".") + fraction;
+    }
+
+    // Share of bookings that were cancelled, e.g. "0.1250"
+    private static String cancellationRate(long[] counters, int at) {
+        long bookings = counters[at + BOOKINGS];
+        if (bookings == 0) {
+            return "0.0000";
+        }
+        long basisPoints = Math.round(counters[at + CANCELLATIONS] * 10000.0 / bookings);
+        String digits = String.valueOf(10000 + basisPoints % 10000).substring(1);
+        return (basisPoints / 10000) + "." + digits;
+    }
+
+    // String -> dense int ID table with a row of counters per ID.
+    // Lookups take a CharSequence, so a row's fields are only copied into a String the first
+    // time a new movie, showtime or day is seen.
+    private static final class KeyTable {
+        private String[] keys = new String[16];
+        private int[] hashes = new int[16];
+        private long[] counters = new long[16 * COUNTERS];
+        private int[] slots = new int[32]; // Open addressing; ID + 1, 0 = empty
+        private int size = 0;
+
+        int idFor(CharSequence key) {
+            int hash = hash(key);
+            int mask = slots.length - 1;
+            for (int slot = hash & mask; ; slot = (slot + 1) & mask) {
+                int entry = slots[slot];
+                if (entry == 0) {
+                    return insert(slot, key.toString(), hash);
+                }
+                int id = entry - 1;
+                if (hashes[id] == hash && contentEquals(keys[id], key)) {
+                    return id;
+                }
+            }
+        }
+
+        void merge(KeyTable other) {
+            for (int id = 0; id < other.size; id++) {
+                int at = idFor(other.keys[id]) * COUNTERS;
+                for (int c = 0; c < COUNTERS; c++) {
+                    counters[at + c] += other.counters[id * COUNTERS + c];
+                }
+            }
+        }
+
+        int[] idsByKey() {
+            Integer[] ids = new Integer[size];
+            for (int i = 0; i < size; i++) {
+                ids[i] = i;
+            }
+            Arrays.sort(ids, (a, b) -> keys[a].compareTo(keys[b]));
+            return unbox(ids);
+        }
+
+        int[] idsByRevenue() {
+            Integer[] ids = new Integer[size];
+            for (int i = 0; i < size; i++) {
+                ids[i] = i;
+            }
+            Arrays.sort(ids, (a, b) -> {
+                int byRevenue = Long.compare(counters[b * COUNTERS + REVENUE_CENTS], counters[a * COUNTERS + REVENUE_CENTS]);
+                return byRevenue != 0 ? byRevenue : keys[a].compareTo(keys[b]);
+            });
+            return unbox(ids);
+        }
+
+        private int insert(int slot, String key, int hash) {
+            int id = size++;
+            if (id == keys.length) {
+                keys = Arrays.copyOf(keys, id * 2);
+                hashes = Arrays.copyOf(hashes, id * 2);
+                counters = Arrays.copyOf(counters, id * 2 * COUNTERS);
+            }
+            keys[id] = key;
+            hashes[id] = hash;
+            slots[slot] = id + 1;
+            if (size * 2 > slots.length) {
+                rehash();
+            }
+            return id;
+        }
+
+        private void rehash() {
+            slots = new int[slots.length * 2];
+            int mask = slots.length - 1;
+            for (int id = 0; id < size; id++) {
+                int slot = hashes[id] & mask;
+                while (slots[slot] != 0) {
+                    slot = (slot + 1) & mask;
+                }
+                slots[slot] = id + 1;
+            }
+        }
+
+        private static int hash(CharSequence key) {
+            int hash = 0;
+            for (int i = 0; i < key.length(); i++) {
+                hash = 31 * hash + key.charAt(i);
+            }
+            return hash ^ (hash >>> 16);
+        }
+
+        private static boolean contentEquals(String key, CharSequence other) {
+            if (key.length() != other.length()) {
+                return false;
+            }
+            for (int i = 0; i < key.length(); i++) {
+                if (key.charAt(i) != other.charAt(i)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private static int[] unbox(Integer[] ids) {
+            int[] result = new int[ids.length];
+            for (int i = 0; i < ids.length; i++) {
+                result[i] = ids[i];
+            }
+            return result;
+        }
+    }
+
+    // Reader over the bytes from start to end of an open file
+    private static Reader rangeReader(FileInputStream in, long start, long end) throws IOException {
+        in.getChannel().position(start);
+        return new InputStreamReader(new RangeInputStream(in, end - start), StandardCharsets.UTF_8);
+    }
+
+    // Reads at most `remaining` bytes of the underlying stream
+    private static final class RangeInputStream extends FilterInputStream {
+        private long remaining;
+
+        RangeInputStream(InputStream in, long length) {
+            super(in);
+            this.remaining = length;
+        }
+
+        @Override
+        public int read() throws IOException {
+            if (remaining <= 0) {
+                return -1;
+            }
+            int b = super.read();
+            if (b >= 0) {
+                remaining--;
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            if (remaining <= 0) {
+                return -1;
+            }
+            int n = super.read(buffer, offset, (int) Math.min(length, remaining));
+            if (n > 0) {
+                remaining -= n;
+            }
+            return n;
+        }
+    }
+}
@@ -0,0 +1,91 @@
+import java.io.IOException;
+import java.io.PrintStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.Scanner;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+// Multi-session server mode.
+// Accepts box-office terminals on a local socket and runs each connection as its own
+// MenuSession on its own thread. All sessions share the booking, seat and user stores.
+// Connect with e.g. `nc localhost 5050`.
+// Only this machine can connect by default; -Dbooking.server.bind=<address> listens on another
+// interface (e.g. 0.0.0.0 for every one) so terminals can connect from elsewhere.
+public class BookingServer
+{
+    public static final int DEFAULT_PORT = 5050;
+    static final String BIND_ADDRESS = System.getProperty("booking.server.bind");
+
+    private final int port;
+
+    public BookingServer(int port)
+    {
+        this.port = port;
+    }
+
+    public void serve() throws IOException
+    {
+        // Load the shared stores once, before the first client arrives
+        BookingStore.getInstance();
+        SeatReservations.getInstance();
+        CatalogueWatcher.start();
+
+        ExecutorService sessions = newThreadPerTaskExecutor();
+        InetAddress bindAddress = BIND_ADDRESS == null ? InetAddress.getLoopbackAddress() : InetAddress.getByName(BIND_ADDRESS);
+        try (ServerSocket server = new ServerSocket(port, 50, bindAddress))
+        {
+            System.out.println("Booking server listening on " + bindAddress.getHostAddress() + " port " + port);
+            while (true)
+            {
+                Socket client = server.accept();
+                sessions.execute(() -> runSession(client));
+            }
+        }
+        finally
+        {
+            sessions.shutdown();
+        }
+    }
+
+    private void runSession(Socket client)
+    {
+        try (Socket socket = client;
+             Scanner in = new Scanner(socket.getInputStream(), StandardCharsets.UTF_8);
+             PrintStream out = new PrintStream(socket.getOutputStream(), true, StandardCharsets.UTF_8))
+        {
+            new MenuSession(in, out, clientAddress(socket)).run();
+        }
+        catch (IOException e)
+        {
+            System.out.println("Session ended with an error: " + e.getMessage());
+        }
+    }
+
+    // How the login throttle tells terminals apart: the peer's IP address, or for terminals on
+    // this machine, which all share the loopback address, the connection's own port as well
+    static String clientAddress(Socket socket)
+    {
+        InetAddress peer = socket.getInetAddress();
+        if (peer.isLoopbackAddress())
+        {
+            return peer.getHostAddress() + ":" + socket.getPort();
+        }
+        return peer.getHostAddress();
+    }
+
+    // One virtual thread per task when the JVM has them (Java 21+), otherwise one pooled platform thread per task
+    static ExecutorService newThreadPerTaskExecutor()
+    {
+        try
+        {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        }
+        catch (ReflectiveOperationException e)
+        {
+            return Executors.newCachedThreadPool();
+        }
+    }
+}
@@ -0,0 +1,412 @@
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.concurrent.RejectedExecutionException;
+
+// Booking engine without any console I/O.
+// Every operation validates its input, changes the shared stores and returns a result object
+// describing what happened; nothing is printed or read. The console screens (BookingTickets,
+// Cancel_booking, User_authen) are front-ends over this class, and batch imports, load tests
+// or a network front-end can drive the same engine directly.
+public class BookingService {
+    private static final DateTimeFormatter DATE_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd");
+    private static final DateTimeFormatter TIME_FORMAT = DateTimeFormatter.ofPattern("HH:mm:ss");
+
+    private static BookingService instance;
+
+    private final BookingStore store;
+    private final SeatInventory seatInventory;
+    private final SeatReservations reservations;
+    private final BookingIdAllocator bookingIds;
+    private final UserDirectory users;
+    private final PasswordHasher hasher;
+    private final LoginThrottle throttle;
+
+    // The person a booking is made for
+    public static final class Customer {
+        private final String name;
+        private final String email;
+
+        public Customer(String name, String email) {
+            this.name = name == null ? "" : name.trim();
+            this.email = email == null ? "" : email.trim();
+        }
+
+        public String getName() { return name; }
+        public String getEmail() { return email; }
+    }
+
+    // Outcome of holding or booking seats
+    public static final class BookingResult {
+        public enum Status { HELD, BOOKED, INVALID_SEATS, SEATS_TAKEN, HOLD_EXPIRED, UNKNOWN_MOVIE, INVALID_CUSTOMER, ERROR }
+
+        private final Status status;
+        private final SeatHold hold;
+        private final My_Bookings.Booking booking;
+        private final String error;
+
+        BookingResult(Status status, SeatHold hold, My_Bookings.Booking booking, String error) {
+            this.status = status;
+            this.hold = hold;
+            this.booking = booking;
+            this.error = error;
+        }
+
+        static BookingResult of(Status status) {
+            return new BookingResult(status, null, null, null);
+        }
+
+        public Status getStatus() { return status; }
+        public boolean isSuccess() { return status == Status.HELD || status == Status.BOOKED; }
+        public SeatHold getHold() { return hold; } // Set for HELD
+        public My_Bookings.Booking getBooking() { return booking; } // Set for BOOKED
+        public String getError() { return error; } // Set for ERROR
+    }
+
+    // Outcome of a cancellation, or of checking whether one is allowed
+    public static final class CancelResult {
+        public enum Status { CANCELLABLE, CANCELLED, NOT_FOUND, NOT_OWNER, ALREADY_CANCELLED, NOT_LOGGED_IN, ERROR }
+
+        private final Status status;
+        private final My_Bookings.Booking booking;
+        private final String error;
+
+        CancelResult(Status status, My_Bookings.Booking booking, String error) {
+            this.status = status;
+            this.booking = booking;
+            this.error = error;
+        }
+
+        public Status getStatus() { return status; }
+        public boolean isSuccess() { return status == Status.CANCELLABLE || status == Status.CANCELLED; }
+        public My_Bookings.Booking getBooking() { return booking; }
+        public String getError() { return error; }
+    }
+
+    // Outcome of a login or sign-up
+    public static final class LoginResult {
+        public enum Status { SUCCESS, INVALID_CREDENTIALS, EMAIL_TAKEN, THROTTLED, BUSY, ERROR }
+
+        private final Status status;
+        private final int userId;
+        private final String email;
+        private final String error;
+        private final long retryAfterMillis;
+
+        LoginResult(Status status, int userId, String email, String error) {
+            this(status, userId, email, error, 0);
+        }
+
+        private LoginResult(Status status, int userId, String email, String error, long retryAfterMillis) {
+            this.status = status;
+            this.userId = userId;
+            this.email = email;
+            this.error = error;
+            this.retryAfterMillis = retryAfterMillis;
+        }
+
+        static LoginResult of(Status status) {
+            return new LoginResult(status, -1, "", null);
+        }
+
+        static LoginResult throttled(long retryAfterMillis) {
+            return new LoginResult(Status.THROTTLED, -1, "", null, retryAfterMillis);
+        }
+
+        public Status getStatus() { return status; }
+        public boolean isSuccess() { return status == Status.SUCCESS; }
+        public int getUserId() { return userId; } // -1 unless SUCCESS
+        public String getEmail() { return email; }
+        public String getError() { return error; }
+        public long getRetryAfterMillis() { return retryAfterMillis; } // 0 unless THROTTLED
+    }
+
+    public static synchronized BookingService getInstance() {
+        if (instance == null) {
+            instance = new BookingService(BookingStore.getInstance(), SeatInventory.getInstance(),
+                    SeatReservations.getInstance(), BookingIdAllocator.getInstance(),
+                    UserDirectory.getInstance(), PasswordHasher.getInstance(), LoginThrottle.getInstance());
+        }
+        return instance;
+    }
+
+    BookingService(BookingStore store, SeatInventory seatInventory, SeatReservations reservations,
+                   BookingIdAllocator bookingIds, UserDirectory users, PasswordHasher hasher,
+                   LoginThrottle throttle) {
+        this.store = store;
+        this.seatInventory = seatInventory;
+        this.reservations = reservations;
+        this.bookingIds = bookingIds;
+        this.users = users;
+        this.hasher = hasher;
+        this.throttle = throttle;
+    }
+
+    // Book the given seats (grid indexes) in one step: hold, confirm and save
+    public BookingResult bookSeats(Showing showing, int[] seats, Customer customer) {
+        if (!isValid(customer)) {
+            return BookingResult.of(BookingResult.Status.INVALID_CUSTOMER);
+        }
+        BookingResult held = holdSeats(showing, seats);
+        if (!held.isSuccess()) {
+            return held;
+        }
+        return confirmHold(held.getHold(), customer);
+    }
+
+    // Hold the given seats while the customer fills in their details.
+    // All seats are held or none; the hold expires after SeatReservations.DEFAULT_HOLD_MILLIS.
+    // The hold is priced at the movie's current ticket price.
+    public BookingResult holdSeats(Showing showing, int[] seats) {
+        return holdSeats(showing, seats, SeatReservations.DEFAULT_HOLD_MILLIS);
+    }
+
+    public BookingResult holdSeats(Showing showing, int[] seats, long holdMillis) {
+        Movie movie = MovieCatalogue.current().findMovie(showing.getMovieName());
+        if (movie == null) {
+            return BookingResult.of(BookingResult.Status.UNKNOWN_MOVIE);
+        }
+        return holdSeats(showing, seats, holdMillis, movie.getPrice());
+    }
+
+    // As above at the ticket price the customer was shown, which confirming the hold will charge
+    public BookingResult holdSeats(Showing showing, int[] seats, long holdMillis, double pricePerTicket) {
+        if (MovieCatalogue.current().findMovie(showing.getMovieName()) == null) {
+            return BookingResult.of(BookingResult.Status.UNKNOWN_MOVIE);
+        }
+        if (!isValidBlock(seatInventory.gridFor(showing), seats)) {
+            return BookingResult.of(BookingResult.Status.INVALID_SEATS);
+        }
+        SeatHold hold = reservations.hold(showing, seats, holdMillis, pricePerTicket);
+        if (hold == null) {
+            return BookingResult.of(BookingResult.Status.SEATS_TAKEN);
+        }
+        return new BookingResult(BookingResult.Status.HELD, hold, null, null);
+    }
+
+    // Hold the best block of `count` adjacent seats, chosen and held in one step.
+    // SEATS_TAKEN means no row has that many free seats together.
+    public BookingResult holdBestAvailable(Showing showing, int count) {
+        return holdBestAvailable(showing, count, SeatReservations.DEFAULT_HOLD_MILLIS);
+    }
+
+    public BookingResult holdBestAvailable(Showing showing, int count, long holdMillis) {
+        Movie movie = MovieCatalogue.current().findMovie(showing.getMovieName());
+        if (movie == null) {
+            return BookingResult.of(BookingResult.Status.UNKNOWN_MOVIE);
+        }
+        return holdBestAvailable(showing, count, holdMillis, movie.getPrice());
+    }
+
+    public BookingResult holdBestAvailable(Showing showing, int count, long holdMillis, double pricePerTicket) {
+        if (MovieCatalogue.current().findMovie(showing.getMovieName()) == null) {
+            return BookingResult.of(BookingResult.Status.UNKNOWN_MOVIE);
+        }
+        if (count <= 0) {
+            return BookingResult.of(BookingResult.Status.INVALID_SEATS);
+        }
+        SeatHold hold = reservations.holdBestAvailable(showing, count, holdMillis, pricePerTicket);
+        if (hold == null) {
+            return BookingResult.of(BookingResult.Status.SEATS_TAKEN);
+        }
+        return new BookingResult(BookingResult.Status.HELD, hold, null, null);
+    }
+
+    // Turn a hold into a saved booking at the ticket price recorded on the hold, which is
+    // the price the customer was shown; a catalogue reload in between changes nothing
+    public BookingResult confirmHold(SeatHold hold, Customer customer) {
+        if (!isValid(customer)) {
+            reservations.release(hold); // Nothing can be booked, so the seats go back on sale
+            return BookingResult.of(BookingResult.Status.INVALID_CUSTOMER);
+        }
+        Showing showing = hold.getShowing();
+        if (!reservations.confirm(hold)) {
+            return BookingResult.of(BookingResult.Status.HOLD_EXPIRED);
+        }
+
+        SeatGrid grid = seatInventory.gridFor(showing);
+        int[] seats = hold.getSeats();
+        String[] seatCodes = new String[seats.length];
+        for (int i = 0; i < seats.length; i++) {
+            seatCodes[i] = grid.seatCode(seats[i]);
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        try {
+            My_Bookings.Booking booking = new My_Bookings.Booking(bookingIds.nextId(),
+                    showing.getMovieName(), customer.getName(), customer.getEmail(),
+                    seats.length, seats.length * hold.getPricePerTicket(),
+                    now.format(DATE_FORMAT), now.format(TIME_FORMAT),
+                    showing.getShowtime(), String.join(";", seatCodes));
+            store.add(booking);
+            return new BookingResult(BookingResult.Status.BOOKED, null, booking, null);
+        } catch (IOException | UncheckedIOException e) {
+            // Nothing was saved, so the seats go back on sale
+            for (int seat : seats) {
+                grid.release(seat);
+            }
+            return new BookingResult(BookingResult.Status.ERROR, null, null, e.getMessage());
+        }
+    }
+
+    // Give held seats back without booking them
+    public boolean releaseHold(SeatHold hold) {
+        return reservations.release(hold);
+    }
+
+    // Check that a booking exists, belongs to the email and is not cancelled yet, without changing it
+    public CancelResult checkCancellable(int bookingId, String email) {
+        My_Bookings.Booking booking = store.findById(bookingId);
+        return checkCancellable(booking,
+                booking != null && booking.getCustomerEmail().equalsIgnoreCase(email == null ? "" : email.trim()));
+    }
+
+    // Same checks for the user logged in to a session; an expired session owns nothing
+    public CancelResult checkCancellable(int bookingId, SessionManager.Session session) {
+        if (session == null) {
+            return new CancelResult(CancelResult.Status.NOT_LOGGED_IN, null, null);
+        }
+        My_Bookings.Booking booking = store.findById(bookingId);
+        return checkCancellable(booking, session.owns(booking));
+    }
+
+    private static CancelResult checkCancellable(My_Bookings.Booking booking, boolean owned) {
+        if (booking == null) {
+            return new CancelResult(CancelResult.Status.NOT_FOUND, null, null);
+        }
+        if (!owned) {
+            return new CancelResult(CancelResult.Status.NOT_OWNER, booking, null);
+        }
+        if ("Cancelled".equalsIgnoreCase(booking.getStatus())) {
+            return new CancelResult(CancelResult.Status.ALREADY_CANCELLED, booking, null);
+        }
+        return new CancelResult(CancelResult.Status.CANCELLABLE, booking, null);
+    }
+
+    public CancelResult cancel(int bookingId, SessionManager.Session session) {
+        if (session == null) {
+            return new CancelResult(CancelResult.Status.NOT_LOGGED_IN, null, null);
+        }
+        return cancel(bookingId, session.getEmail());
+    }
+
+    // Cancel a customer's booking.
+    // The check and the status change run under the store's lock, so two concurrent
+    // cancellations of the same booking cannot both succeed.
+    public CancelResult cancel(int bookingId, String email) {
+        synchronized (store) {
+            CancelResult check = checkCancellable(bookingId, email);
+            if (check.getStatus() != CancelResult.Status.CANCELLABLE) {
+                return check;
+            }
+            try {
+                My_Bookings.Booking booking = store.updateStatus(bookingId, "Cancelled");
+                return new CancelResult(CancelResult.Status.CANCELLED, booking, null);
+            } catch (IOException e) {
+                return new CancelResult(CancelResult.Status.ERROR, check.getBooking(), e.getMessage());
+            }
+        }
+    }
+
+    // Check an email and password; on success the stored hash is upgraded if it is outdated.
+    // Unknown emails and wrong passwords give the same result.
+    public LoginResult login(String email, String password) {
+        return login(email, password, null);
+    }
+
+    // As above for a terminal at the given client address. The attempt is rate limited per
+    // email and per address before the user is looked up or any password is hashed.
+    public LoginResult login(String email, String password, String clientAddress) {
+        String trimmedEmail = email == null ? "" : email.trim();
+        long retryAfter = throttle.checkLogin(trimmedEmail, clientAddress);
+        if (retryAfter > 0) {
+            return LoginResult.throttled(retryAfter);
+        }
+        UserDirectory.UserRecord user = users.find(trimmedEmail);
+        boolean passwordMatches;
+        try {
+            passwordMatches = user != null && password != null && hasher.verify(password, user.getPassword());
+        } catch (RejectedExecutionException e) {
+            return LoginResult.of(LoginResult.Status.BUSY);
+        }
+        if (!passwordMatches) {
+            throttle.onLoginFailed(trimmedEmail);
+            return LoginResult.of(LoginResult.Status.INVALID_CREDENTIALS);
+        }
+        throttle.onLoginSucceeded(trimmedEmail);
+
+        user = upgradePasswordHash(user, password);
+        // Old-format rows have no user ID; give the session the next free one
+        int userId = user.getUserId() >= 0 ? user.getUserId() : users.nextUserId();
+        return new LoginResult(LoginResult.Status.SUCCESS, userId, trimmedEmail, null);
+    }
+
+    // Create an account; the caller validates the email, name and password format
+    public LoginResult register(String email, String password, String name) {
+        return register(email, password, name, null);
+    }
+
+    // As above, limited per client address since every sign-up costs a password hash
+    public LoginResult register(String email, String password, String name, String clientAddress) {
+        String trimmedEmail = email == null ? "" : email.trim();
+        long retryAfter = throttle.checkSignUp(clientAddress);
+        if (retryAfter > 0) {
+            return LoginResult.throttled(retryAfter);
+        }
+        // Turn away known emails before spending a hash on them; register() still catches a race
+        if (users.exists(trimmedEmail)) {
+            return LoginResult.of(LoginResult.Status.EMAIL_TAKEN);
+        }
+        try {
+            UserDirectory.UserRecord user = users.register(trimmedEmail, hasher.hash(password), name);
+            if (user == null) {
+                return LoginResult.of(LoginResult.Status.EMAIL_TAKEN);
+            }
+            return new LoginResult(LoginResult.Status.SUCCESS, user.getUserId(), trimmedEmail, null);
+        } catch (IOException e) {
+            return new LoginResult(LoginResult.Status.ERROR, -1, trimmedEmail, e.getMessage());
+        } catch (RejectedExecutionException e) {
+            return LoginResult.of(LoginResult.Status.BUSY);
+        }
+    }
+
+    public boolean isEmailRegistered(String email) {
+        return users.exists(email);
+    }
+
+    // Re-hash plaintext passwords (and hashes with an old work factor) after a successful login
+    private UserDirectory.UserRecord upgradePasswordHash(UserDirectory.UserRecord user, String password) {
+        if (!hasher.needsRehash(user.getPassword())) {
+            return user;
+        }
+        try {
+            return users.updatePassword(user, hasher.hash(password));
+        } catch (IOException | RejectedExecutionException e) {
+            // Keep the old form; the upgrade is retried on the next login
+            return user;
+        }
+    }
+
+    private static boolean isValid(Customer customer) {
+        return customer != null && !customer.getName().isEmpty() && !customer.getEmail().isEmpty();
+    }
+
+    // A non-empty block of distinct seats that all exist in the hall
+    private static boolean isValidBlock(SeatGrid grid, int[] seats) {
+        if (seats == null || seats.length == 0) {
+            return false;
+        }
+        for (int i = 0; i < seats.length; i++) {
+            if (seats[i] < 0 || seats[i] >= grid.getCapacity()) {
+                return false;
+            }
+            for (int j = 0; j < i; j++) {
+                if (seats[j] == seats[i]) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,32 @@
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+// Where BookingStore keeps its bookings on disk.
+// BookingJournal (CSV snapshot + change journal) is the default; MappedBookingStore is the
+// binary alternative, chosen with -Dbooking.storage=mapped.
+public interface BookingStorage {
+    // Every booking, with all recorded changes applied, in storage order
+    List<My_Bookings.Booking> loadAll();
+
+    void append(My_Bookings.Booking booking) throws IOException;
+
+    // Start appending a booking; the future completes once it is durable.
+    // Storage without a write queue appends synchronously.
+    default CompletableFuture<Void> appendAsync(My_Bookings.Booking booking) {
+        try {
+            append(booking);
+            return CompletableFuture.completedFuture(null);
+        } catch (IOException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    void recordStatus(int bookingId, String status) throws IOException;
+
+    void recordTickets(int bookingId, int tickets, double totalPrice) throws IOException;
+
+    boolean needsCompaction();
+
+    void compact(List<My_Bookings.Booking> bookings) throws IOException;
+}
@@ -0,0 +1,372 @@
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+// Long-lived booking repository.
+// Loads all bookings from storage once and keeps indexes on booking ID, customer email,
+// movie and showtime in sync as bookings are created or changed, so lookups never rescan the file.
+// The email and movie indexes, and the index of all bookings, are sorted by booking ID, so
+// query() can walk one of them from a cursor and stop as soon as a page is full.
+// By default storage is the CSV snapshot plus the append-only BookingJournal, which a background
+// task compacts back into the snapshot; -Dbooking.storage=mapped switches to MappedBookingStore.
+public class BookingStore {
+    private static final long COMPACTION_INTERVAL_SECONDS = 30;
+    private static BookingStore instance;
+
+    private final BookingStorage storage;
+    private final SalesCounters sales = SalesCounters.getInstance();
+
+    private final List<My_Bookings.Booking> bookings = new ArrayList<>(); // File order
+    private final Map<Integer, My_Bookings.Booking> byId = new HashMap<>();
+    // Sorted indexes keyed by sortKey(): booking ID, then file position for duplicate IDs
+    private final NavigableMap<Long, My_Bookings.Booking> byKey = new TreeMap<>();
+    private final Map<String, NavigableMap<Long, My_Bookings.Booking>> byEmail = new HashMap<>();
+    private final Map<String, NavigableMap<Long, My_Bookings.Booking>> byMovie = new HashMap<>();
+    private final Map<My_Bookings.Booking, Long> sortKeys = new IdentityHashMap<>();
+    private final Map<String, List<My_Bookings.Booking>> byShowtime = new HashMap<>();
+    private int maxBookingId = 0;
+    private int nextPosition = 0; // File position for sortKey(); not reused when a failed booking is removed
+
+    // Shared store used by every screen of the application
+    public static synchronized BookingStore getInstance() {
+        if (instance == null) {
+            instance = new BookingStore(openStorage());
+        }
+        return instance;
+    }
+
+    BookingStore(BookingStorage storage) {
+        this.storage = storage;
+        for (My_Bookings.Booking booking : storage.loadAll()) {
+            index(booking);
+        }
+        startCompaction();
+    }
+
+    private static BookingStorage openStorage() {
+        if ("mapped".equals(System.getProperty("booking.storage"))) {
+            try {
+                return new MappedBookingStore(MappedBookingStore.DATA_FILE, MappedBookingStore.DICTIONARY_FILE,
+                        MappedBookingStore.TEXT_FILE);
+            } catch (IOException e) {
+                System.out.println("Error opening binary booking store, using CSV: " + e.getMessage());
+            }
+        }
+        return new BookingJournal(My_Bookings.BOOKINGS_FILE, BookingJournal.JOURNAL_FILE);
+    }
+
+    // Lookup by primary key
+    public synchronized My_Bookings.Booking findById(int bookingId) {
+        return byId.get(bookingId);
+    }
+
+    // Lookup by customer email (case-insensitive)
+    public synchronized List<My_Bookings.Booking> findByEmail(String email) {
+        return copyOf(byEmail.get(emailKey(email)));
+    }
+
+    public synchronized int countByEmail(String email) {
+        NavigableMap<Long, My_Bookings.Booking> index = byEmail.get(emailKey(email));
+        return index == null ? 0 : index.size();
+    }
+
+    public synchronized List<My_Bookings.Booking> findByMovie(String movieName) {
+        return copyOf(byMovie.get(movieName));
+    }
+
+    // One page of bookings matching a query.
+    // Walks the most selective sorted index from the cursor and stops after limit + 1 matches,
+    // so the cost depends on the page size, not on how many bookings match overall.
+    public synchronized BookingQuery.Page query(BookingQuery query) {
+        NavigableMap<Long, My_Bookings.Booking> index;
+        if (query.getEmail() != null) {
+            index = byEmail.get(emailKey(query.getEmail()));
+        } else if (query.getMovie() != null) {
+            index = byMovie.get(query.getMovie());
+        } else {
+            index = byKey;
+        }
+        List<My_Bookings.Booking> page = new ArrayList<>(query.getLimit());
+        if (index == null) {
+            return new BookingQuery.Page(page, BookingQuery.NO_CURSOR, false);
+        }
+
+        boolean newestFirst = query.getOrder() == BookingQuery.Order.NEWEST_FIRST;
+        long cursor = query.getCursor();
+        NavigableMap<Long, My_Bookings.Booking> range;
+        if (cursor == BookingQuery.NO_CURSOR) {
+            range = newestFirst ? index.descendingMap() : index;
+        } else {
+            range = newestFirst ? index.headMap(cursor, false).descendingMap() : index.tailMap(cursor, false);
+        }
+
+        long lastKey = BookingQuery.NO_CURSOR;
+        for (Map.Entry<Long, My_Bookings.Booking> entry : range.entrySet()) {
+            My_Bookings.Booking booking = entry.getValue();
+            if (query.getMovie() != null && !query.getMovie().equals(booking.getMovieName())) {
+                continue;
+            }
+            if (!query.matches(booking)) {
+                continue;
+            }
+            if (page.size() == query.getLimit()) {
+                return new BookingQuery.Page(page, lastKey, true);
+            }
+            page.add(booking);
+            lastKey = entry.getKey();
+        }
+        return new BookingQuery.Page(page, lastKey, false);
+    }
+
+    public synchronized List<My_Bookings.Booking> findByShowtime(String showtime) {
+        return copyOf(byShowtime.get(showtime));
+    }
+
+    public synchronized List<My_Bookings.Booking> getAll() {
+        return new ArrayList<>(bookings);
+    }
+
+    public synchronized int size() {
+        return bookings.size();
+    }
+
+    public synchronized int getMaxBookingId() {
+        return maxBookingId;
+    }
+
+    // Append a new booking to storage and index it; returns once the booking is durable
+    public void add(My_Bookings.Booking booking) throws IOException {
+        GroupCommitWriter.await(addAsync(booking));
+    }
+
+    // Queue a new booking for storage and index it right away.
+    // The future completes with the booking once it is durable. Waiting happens outside the
+    // store's lock, so concurrent sessions' bookings can share one disk flush. If the write
+    // fails, the booking is taken out of the indexes again before the future fails.
+    public CompletableFuture<My_Bookings.Booking> addAsync(My_Bookings.Booking booking) {
+        CompletableFuture<Void> durable;
+        synchronized (this) {
+            durable = storage.appendAsync(booking);
+            index(booking);
+        }
+        CompletableFuture<My_Bookings.Booking> saved = new CompletableFuture<>();
+        durable.whenComplete((done, error) -> {
+            if (error == null) {
+                saved.complete(booking);
+                return;
+            }
+            // Off the writer thread: compaction can hold the store's lock while it drains the writer
+            CompletableFuture.runAsync(() -> {
+                synchronized (this) {
+                    unindex(booking);
+                }
+                saved.completeExceptionally(error);
+            });
+        });
+        return saved;
+    }
+
+    // Change a booking's status with a single storage record.
+    // Reinstating a cancelled booking first takes its seats back; if any was resold in the
+    // meantime nothing changes and the booking is returned with its old status.
+    public synchronized My_Bookings.Booking updateStatus(int bookingId, String status) throws IOException {
+        My_Bookings.Booking booking = byId.get(bookingId);
+        if (booking == null) {
+            return null;
+        }
+        String oldStatus = booking.getStatus();
+        boolean reinstating = "Cancelled".equalsIgnoreCase(oldStatus) && !"Cancelled".equalsIgnoreCase(status);
+        SeatInventory seats = SeatInventory.getInstance();
+        if (reinstating && !seats.reclaimSeats(booking)) {
+            return booking; // A seat was sold again since the cancellation; the status stays as it is
+        }
+        try {
+            storage.recordStatus(bookingId, status);
+        } catch (IOException e) {
+            if (reinstating) {
+                seats.releaseSeats(booking);
+            }
+            throw e;
+        }
+        booking.setStatus(status);
+        if (!reinstating) {
+            seats.onStatusChanged(booking, oldStatus);
+        }
+        sales.onStatusChanged(booking, oldStatus);
+        return booking;
+    }
+
+    // Change a booking's ticket count (the price per ticket is kept) with a single storage record
+    public synchronized My_Bookings.Booking updateTickets(int bookingId, int tickets) throws IOException {
+        My_Bookings.Booking booking = byId.get(bookingId);
+        if (booking == null) {
+            return null;
+        }
+        int oldTickets = booking.getNumberOfTickets();
+        double oldTotal = booking.getTotalPrice();
+        double newTotal = tickets * booking.getTicketPrice();
+        storage.recordTickets(bookingId, tickets, newTotal);
+        booking.restoreTickets(tickets, newTotal);
+        sales.onTicketsChanged(booking, oldTickets, oldTotal);
+        return booking;
+    }
+
+    // Persist a booking that was changed in place by the caller.
+    // Only status and ticket count can change, so the secondary indexes stay valid
+    // and only the primary entry is replaced.
+    // Sales counters and seats only see the change when a new Booking object is passed in; an
+    // object edited in place has lost its old values, so prefer updateStatus() and updateTickets().
+    // A reinstatement whose seats were sold again is not saved, as in updateStatus().
+    public synchronized void update(My_Bookings.Booking updatedBooking) throws IOException {
+        My_Bookings.Booking existing = byId.get(updatedBooking.getBookingId());
+        if (existing == null) {
+            return;
+        }
+        String oldStatus = existing.getStatus();
+        boolean reinstating = "Cancelled".equalsIgnoreCase(oldStatus)
+                && !"Cancelled".equalsIgnoreCase(updatedBooking.getStatus());
+        SeatInventory seats = SeatInventory.getInstance();
+        if (reinstating && !seats.reclaimSeats(updatedBooking)) {
+            return;
+        }
+        try {
+            storage.recordStatus(updatedBooking.getBookingId(), updatedBooking.getStatus());
+            storage.recordTickets(updatedBooking.getBookingId(), updatedBooking.getNumberOfTickets(), updatedBooking.getTotalPrice());
+        } catch (IOException e) {
+            if (reinstating) {
+                seats.releaseSeats(updatedBooking);
+            }
+            throw e;
+        }
+        if (existing != updatedBooking) {
+            replace(existing, updatedBooking);
+            sales.onReplaced(existing, updatedBooking);
+        }
+        if (!reinstating) {
+            seats.onStatusChanged(updatedBooking, oldStatus);
+        }
+    }
+
+    // Merge recorded changes into a fresh snapshot
+    public synchronized void compact() throws IOException {
+        storage.compact(bookings);
+    }
+
+    private void startCompaction() {
+        ScheduledExecutorService compactor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "booking-compactor");
+            thread.setDaemon(true);
+            return thread;
+        });
+        compactor.scheduleWithFixedDelay(() -> {
+            try {
+                synchronized (this) {
+                    if (storage.needsCompaction()) {
+                        compact();
+                    }
+                }
+            } catch (IOException e) {
+                System.out.println("Error compacting bookings: " + e.getMessage());
+            }
+        }, COMPACTION_INTERVAL_SECONDS, COMPACTION_INTERVAL_SECONDS, TimeUnit.SECONDS);
+    }
+
+    private void index(My_Bookings.Booking booking) {
+        long key = sortKey(booking.getBookingId(), nextPosition++);
+        bookings.add(booking);
+        maxBookingId = Math.max(maxBookingId, booking.getBookingId());
+        // Keep the first row for duplicate IDs, like the old linear search did
+        byId.putIfAbsent(booking.getBookingId(), booking);
+        sortKeys.put(booking, key);
+        byKey.put(key, booking);
+        byEmail.computeIfAbsent(emailKey(booking.getCustomerEmail()), k -> new TreeMap<>()).put(key, booking);
+        byMovie.computeIfAbsent(booking.getMovieName(), k -> new TreeMap<>()).put(key, booking);
+        byShowtime.computeIfAbsent(booking.getShowtime(), k -> new ArrayList<>()).add(booking);
+        sales.onBooked(booking);
+    }
+
+    // Undo index() for a booking that never made it to storage
+    private void unindex(My_Bookings.Booking booking) {
+        Long key = sortKeys.remove(booking);
+        if (key == null) {
+            return;
+        }
+        for (int i = bookings.size() - 1; i >= 0; i--) {
+            if (bookings.get(i) == booking) {
+                bookings.remove(i);
+                break;
+            }
+        }
+        byId.remove(booking.getBookingId(), booking);
+        byKey.remove(key);
+        removeFrom(byEmail, emailKey(booking.getCustomerEmail()), key);
+        removeFrom(byMovie, booking.getMovieName(), key);
+        List<My_Bookings.Booking> showtime = byShowtime.get(booking.getShowtime());
+        if (showtime != null) {
+            showtime.removeIf(b -> b == booking);
+        }
+        sales.onRemoved(booking);
+    }
+
+    private static void removeFrom(Map<String, NavigableMap<Long, My_Bookings.Booking>> indexes, String name, long key) {
+        NavigableMap<Long, My_Bookings.Booking> index = indexes.get(name);
+        if (index != null) {
+            index.remove(key);
+            if (index.isEmpty()) {
+                indexes.remove(name);
+            }
+        }
+    }
+
+    private void replace(My_Bookings.Booking existing, My_Bookings.Booking updated) {
+        long key = sortKeys.remove(existing);
+        sortKeys.put(updated, key);
+        byId.put(updated.getBookingId(), updated);
+        byKey.put(key, updated);
+        replaceIn(bookings, existing, updated);
+        byEmail.get(emailKey(existing.getCustomerEmail())).put(key, updated);
+        byMovie.get(existing.getMovieName()).put(key, updated);
+        replaceIn(byShowtime.get(existing.getShowtime()), existing, updated);
+    }
+
+    // Booking ID in the high half, file position in the low half, so rows that share an
+    // ID (from before IDs were allocated) still get distinct, stable keys
+    private static long sortKey(int bookingId, int position) {
+        return ((long) bookingId << 32) | (position & 0xFFFFFFFFL);
+    }
+
+    private static void replaceIn(List<My_Bookings.Booking> list, My_Bookings.Booking existing, My_Bookings.Booking updated) {
+        if (list == null) {
+            return;
+        }
+        for (int i = 0; i < list.size(); i++) {
+            if (list.get(i) == existing) {
+                list.set(i, updated);
+                return;
+            }
+        }
+    }
+
+    private static List<My_Bookings.Booking> copyOf(List<My_Bookings.Booking> list) {
+        return list == null ? Collections.emptyList() : new ArrayList<>(list);
+    }
+
+    private static List<My_Bookings.Booking> copyOf(NavigableMap<Long, My_Bookings.Booking> index) {
+        return index == null ? Collections.emptyList() : new ArrayList<>(index.values());
+    }
+
+    static String emailKey(String email) {
+        return email == null ? "" : email.trim().toLowerCase(Locale.ROOT);
+    }
+}
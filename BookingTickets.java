@@ -1,520 +1,511 @@
 import java.util.Scanner;
 import java.util.InputMismatchException;
-import java.io.FileWriter;
-import java.io.IOException;
-import java.io.BufferedReader;
-import java.io.FileReader;
-import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
+import java.io.PrintStream;
+import java.time.LocalDate;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.function.IntFunction;
 
 
 public class BookingTickets {
-    private Scanner scanner = new Scanner(System.in);
-    private int bookingIDCounter = 1;
-    private String bookingsFile = "movie_bookings.csv";
-    private String moviesFile = "movies.csv";
-    private Map<String, List<String>> moviesByGenre = new HashMap<>();
-    private Map<String, Boolean> seatingMap = new HashMap<>(); // Key: seat coordinate (e.g., "A1"), Value: true if booked, false if available
+    private static final int PAGE_SIZE = 10; // Menu entries per page
+    private static final int GO_BACK = -1;
+    private static final int SEARCH = -2;
+    private Scanner scanner;
+    private PrintStream out;
+    private User_authen auth; // Who is logged in at this terminal
+    private SeatInventory seatInventory = SeatInventory.getInstance(); // Seat bitmaps per showing (movie, showtime, date)
+    private BookingService service = BookingService.getInstance(); // Holds, confirms and saves bookings
+    private SeatMapRenderer seatMaps = SeatMapRenderer.getInstance(); // Cached seat maps shared by all sessions
+    private Map<Showing, Long> seenVersions = new HashMap<>(); // Seat map version this session last saw, per showing
     
     // Constructor - runs automatically when BookingTickets object is created
     public BookingTickets() 
         {
-            initializeCSVFile(); // Setup the CSV file for storing bookings
-            loadMoviesFromCSV(); // Load movies from CSV file
-            initializeSeatingMap(); // Initialize 10×10 seating map
-            loadBookedSeatsFromCSV(); // Load existing bookings to mark seats as booked
+            this(new Scanner(System.in), System.out);
         }
     
-    // Initialize the CSV file - creates it if doesn't exist
-    private void initializeCSVFile()
-    {
-        try 
-        {
-            FileWriter write = new FileWriter(bookingsFile, true);
-            write.close();
-        } catch (IOException e)
-
-        {
-            System.out.println("❌ An error occurred while initializing the bookings file: " + e.getMessage());
-        }
-    }
-    
-    // Load movies from CSV file and organize by genre
-    private void loadMoviesFromCSV()
-    {
-        try 
-        {
-            BufferedReader reader = new BufferedReader(new FileReader(moviesFile));
-            String line = reader.readLine(); // Skip header line
-            
-            while ((line = reader.readLine()) != null) 
-            {
-                String[] parts = line.split(",");
-                if (parts.length >= 2) 
-                {
-                    String genre = parts[0].trim();
-                    String movie = parts[1].trim();
-                    
-                    // Add movie to the appropriate genre list
-                    moviesByGenre.putIfAbsent(genre, new ArrayList<>());
-                    moviesByGenre.get(genre).add(movie);
-                }
-            }
-            reader.close();
-        } 
-        catch (IOException e) 
+    public BookingTickets(Scanner scanner, PrintStream out) 
         {
-            System.out.println("❌ An error occurred while loading movies: " + e.getMessage());
+            this(scanner, out, new User_authen(scanner, out));
         }
-    }
     
-    // Initialize 10×10 seating map (A1-A10, B1-B10, ..., J1-J10)
-    private void initializeSeatingMap()
-    {
-        for (char row = 'A'; row <= 'J'; row++) 
+    // Session-bound constructor: reads and writes through the given console
+    public BookingTickets(Scanner scanner, PrintStream out, User_authen auth) 
         {
-            for (int col = 1; col <= 10; col++) 
-            {
-                String seat = String.valueOf(row) + col;
-                seatingMap.put(seat, false); // false means available
-            }
+            this.scanner = scanner;
+            this.out = out;
+            this.auth = auth;
         }
-    }
     
-    // Display seating map
-    private void displaySeatingMap()
+    // Display seating map for a showing.
+    // The map comes pre-rendered from SeatMapRenderer and goes out in a single print;
+    // in delta mode a showing seen before in this session only shows the seats that changed.
+    private void displaySeatingMap(Showing showing)
     {
-        System.out.println("\n" + "=".repeat(60));
-        System.out.println("   🪑 THEATER SEATING MAP (10×10)");
-        System.out.println("=".repeat(60));
-        System.out.println("   Legend: [ ] = Available, [X] = Booked");
-        System.out.println("   " + " ".repeat(10) + "SCREEN");
-        System.out.println("   " + "=".repeat(50));
-        
-        // Print column numbers
-        System.out.print("   ");
-        for (int col = 1; col <= 10; col++) 
+        SeatMapRenderer.SeatMap map = null;
+        Long lastSeen = seenVersions.get(showing);
+        if (SeatMapRenderer.DELTA_MODE && lastSeen != null)
         {
-            System.out.print(String.format("%4d", col));
+            map = seatMaps.renderChanges(showing, lastSeen);
         }
-        System.out.println();
-        
-        // Print rows with seat status
-        for (char row = 'A'; row <= 'J'; row++) 
+        if (map == null)
         {
-            System.out.print(" " + row + " ");
-            for (int col = 1; col <= 10; col++) 
-            {
-                String seat = String.valueOf(row) + col;
-                boolean isBooked = seatingMap.get(seat);
-                if (isBooked) 
-                {
-                    System.out.print("[X] ");
-                } 
-                else 
-                {
-                    System.out.print("[ ] ");
-                }
-            }
-            System.out.println();
+            map = seatMaps.render(showing);
         }
-        System.out.println("=".repeat(60));
+        seenVersions.put(showing, map.getVersion());
+        out.print(map.getText());
+        out.flush();
     }
     
-    // Get available seats count
-    private int getAvailableSeatsCount()
+    // Main method for browsing and booking tickets
+    public void browseAndBookTickets()
     {
-        int count = 0;
-        for (boolean booked : seatingMap.values()) 
-        {
-            if (!booked) 
+        while (true){
+            // One catalogue snapshot per pass, so the screens below stay consistent
+            MovieCatalogue catalogue = MovieCatalogue.current();
+            List<String> genres = catalogue.getGenres();
+            if (genres.isEmpty())
             {
-                count++;
+                out.println("\n❌ No movies are available right now.");
+                return;
             }
-        }
-        return count;
-    }
-    
-    // Load booked seats from existing bookings in CSV file
-    private void loadBookedSeatsFromCSV()
-    {
-        try 
-        {
-            BufferedReader reader = new BufferedReader(new FileReader(bookingsFile));
-            String line;
             
-            while ((line = reader.readLine()) != null) 
+            // Step 1: Genre Selection
+            int genre_choice = chooseFromPages(genres.size(), genres::get,
+                    "        🎬 BROWSE AND BOOK TICKETS 🎬\n" + "=".repeat(50) + "\n📂 Select a Genre:",
+                    "Return to Main Menu", "🎭 Select a genre", true);
+            
+            Movie selectedMovie;
+            if (genre_choice == SEARCH)
             {
-                try 
+                selectedMovie = searchMovies();
+                if (selectedMovie == null)
                 {
-                    String[] parts = line.split(",");
-                    // Format: BookingID,MovieName,CustomerName,CustomerEmail,Tickets,TotalPrice,Date,Time,Showtime,Seats[,Status]
-                    if (parts.length >= 10) 
-                    {
-                        String seatsStr = parts[9].trim();
-                        if (!seatsStr.isEmpty()) 
-                        {
-                            // Seats are separated by semicolon
-                            String[] seats = seatsStr.split(";");
-                            for (String seat : seats) 
-                            {
-                                seat = seat.trim().toUpperCase();
-                                if (isValidSeat(seat)) 
-                                {
-                                    // Check if booking is not cancelled (if status field exists)
-                                    boolean isCancelled = false;
-                                    if (parts.length >= 11) 
-                                    {
-                                        String status = parts[10].trim();
-                                        isCancelled = status.equalsIgnoreCase("Cancelled");
-                                    }
-                                    
-                                    // Only mark as booked if not cancelled
-                                    if (!isCancelled) 
-                                    {
-                                        seatingMap.put(seat, true);
-                                    }
-                                }
-                            }
-                        }
-                    }
-                } 
-                catch (Exception e) 
-                {
-                    // Skip invalid lines
-                    continue;
+                    continue; // Go back to genre selection
                 }
             }
-            reader.close();
-        } 
-        catch (IOException e) 
-        {
-            // File might not exist yet, which is okay
-        }
-    }
-    
-    // Main method for browsing and booking tickets
-    public void browseAndBookTickets()
-    {
-        while (true){
-            // Step 1: Genre Selection
-            System.out.println("\n" + "=".repeat(50));
-            System.out.println("        🎬 BROWSE AND BOOK TICKETS 🎬");
-            System.out.println("=".repeat(50));
-            System.out.println("📂 Select a Genre:");
-            System.out.println("1. Action");
-            System.out.println("2. Thriller");
-            System.out.println("3. Horror");
-            System.out.println("4. Funny");
-            System.out.println("5. Romantic");
-            System.out.println("6. Return to Main Menu");
-            System.out.println("-".repeat(50));
-            System.out.print("🎭 Select a genre (1-6): ");
-            
-            int genre_choice = getValidnumber();
-            
-            if (genre_choice == 6){
-                System.out.println("\n" + "=".repeat(40));
-                System.out.println("   RETURNING TO MAIN MENU...");
-                System.out.println("=".repeat(40));
+            else if (genre_choice == GO_BACK){
+                out.println("\n" + "=".repeat(40));
+                out.println("   RETURNING TO MAIN MENU...");
+                out.println("=".repeat(40));
                 return;
             }
-            
-            String selectedGenre = "";
-            switch (genre_choice)
+            else
             {
-                case 1: selectedGenre = "Action"; break;
-                case 2: selectedGenre = "Thriller"; break;
-                case 3: selectedGenre = "Horror"; break;
-                case 4: selectedGenre = "Funny"; break;
-                case 5: selectedGenre = "Romantic"; break;
-                default:
-                    System.out.println("\n❌ Invalid choice. Please select a valid genre (1-6).");
+                String selectedGenre = genres.get(genre_choice);
+                
+                // Step 2: Display movies for selected genre
+                List<Movie> movies = catalogue.getMovies(selectedGenre);
+                if (movies.isEmpty())
+                {
+                    out.println("\n❌ No movies found for genre: " + selectedGenre);
                     continue;
+                }
+                
+                int movie_choice = chooseFromPages(movies.size(),
+                        i -> movies.get(i).getTitle() + " - 🕐 " + String.join(", ", movies.get(i).getShowtimes()),
+                        "   🎥 MOVIES IN " + selectedGenre.toUpperCase() + " GENRE",
+                        "Go back to genre selection", "🎬 Select a movie", false);
+                
+                if (movie_choice == GO_BACK)
+                {
+                    continue; // Go back to genre selection
+                }
+                
+                selectedMovie = movies.get(movie_choice);
             }
             
-            // Step 2: Display movies for selected genre
-            List<String> movies = moviesByGenre.get(selectedGenre);
-            if (movies == null || movies.isEmpty())
-            {
-                System.out.println("\n❌ No movies found for genre: " + selectedGenre);
-                continue;
-            }
-            
-            System.out.println("\n" + "=".repeat(50));
-            System.out.println("   🎥 MOVIES IN " + selectedGenre.toUpperCase() + " GENRE");
-            System.out.println("=".repeat(50));
-            
-            // Generate showtimes for movies (different times for variety)
-            String[] showtimes = {"1:00 PM", "4:00 PM", "7:00 PM", "9:30 PM"};
-            
-            for (int i = 0; i < movies.size(); i++)
-            {
-                String showtime = showtimes[i % showtimes.length]; // Cycle through showtimes
-                System.out.println((i + 1) + ". " + movies.get(i) + " - 🕐 " + showtime);
-            }
-            System.out.println((movies.size() + 1) + ". Go back to genre selection");
-            System.out.println("-".repeat(50));
-            System.out.print("🎬 Select a movie (1-" + (movies.size() + 1) + "): ");
-            
-            int movie_choice = getValidnumber();
-            
-            if (movie_choice == movies.size() + 1)
+            // Step 3: Pick one of the movie's showtimes
+            String Showtime = chooseShowtime(selectedMovie);
+            if (Showtime == null)
             {
                 continue; // Go back to genre selection
             }
+            double PriceperTicket = selectedMovie.getPrice();
+            Showing showing = new Showing(selectedMovie.getTitle(), Showtime, LocalDate.now().toString());
+            int available_tickets = seatInventory.getAvailableSeatsCount(showing);
             
-            if (movie_choice < 1 || movie_choice > movies.size())
-            {
-                System.out.println("\n❌ Invalid choice. Please select a valid movie.");
-                continue;
-            }
-            
-            String selectedMovie = movies.get(movie_choice - 1);
-            double PriceperTicket = 50.0; // Default price, can be customized per movie
-            int available_tickets = getAvailableSeatsCount();
-            
-            // Generate showtime based on movie position (same as in list)
-            String Showtime = showtimes[(movie_choice - 1) % showtimes.length];
+            displayMovieDetails(selectedMovie, showing, available_tickets);
             
-            displayMovieDetails(selectedMovie + " - A great " + selectedGenre.toLowerCase() + " movie.", 
-                            PriceperTicket, "Standard", available_tickets, Showtime);
-            
-            System.out.println("\n" + "-".repeat(50));
-            System.out.println("🕐 Showtime: " + Showtime);
-            System.out.println("-".repeat(50));
-            System.out.print("📝 Do you want to book tickets for '" + selectedMovie + "' at " + Showtime + "? (yes/no): ");
+            out.println("\n" + "-".repeat(50));
+            out.println("🕐 Showtime: " + Showtime);
+            out.println("-".repeat(50));
+            out.print("📝 Do you want to book tickets for '" + selectedMovie.getTitle() + "' at " + Showtime + "? (yes/no): ");
             String bookchoice = getYesNoInput();
 
             // If user wants to book, proceed with booking process
             if (bookchoice.equalsIgnoreCase("yes")){
-                book_Tickets(selectedMovie, PriceperTicket, available_tickets, Showtime);
+                book_Tickets(showing, PriceperTicket, available_tickets);
             }
             
-            System.out.println("\n" + "=".repeat(50));
-            System.out.print("🔍 Do you want to browse more movies? (yes/no): ");
+            out.println("\n" + "=".repeat(50));
+            out.print("🔍 Do you want to browse more movies? (yes/no): ");
             String continueChoice = getYesNoInput();
             
             if (!continueChoice.equalsIgnoreCase("yes")){
-                System.out.println("\n" + "=".repeat(50));
-                System.out.println("   👋 Thank you for using our booking system!");
-                System.out.println("=".repeat(50));
+                out.println("\n" + "=".repeat(50));
+                out.println("   👋 Thank you for using our booking system!");
+                out.println("=".repeat(50));
                 return;
             }
         }
     }
     
-    
-
-    // Validate seat coordinate (e.g., A1, B5, J10)
-    private boolean isValidSeat(String seat)
+    // Find a movie by title or genre words; returns null to go back
+    private Movie searchMovies()
     {
-        if (seat == null || seat.length() < 2 || seat.length() > 3)
-        {
-            return false;
-        }
-        
-        char row = Character.toUpperCase(seat.charAt(0));
-        if (row < 'A' || row > 'J')
+        out.print("\n🔍 Enter a movie title or keywords: ");
+        String query = scanner.nextLine().trim();
+        List<Movie> results = MovieSearchIndex.getInstance().search(query);
+        if (results.isEmpty())
         {
-            return false;
+            out.println("\n❌ No movies found for: " + query);
+            return null;
         }
         
-        try 
+        int choice = chooseFromPages(results.size(),
+                i -> results.get(i).getTitle() + " (" + results.get(i).getGenre() + ") - 🕐 "
+                        + String.join(", ", results.get(i).getShowtimes()),
+                "   🔍 RESULTS FOR '" + query + "'",
+                "Go back to genre selection", "🎬 Select a movie", false);
+        return choice == GO_BACK ? null : results.get(choice);
+    }
+    
+    // Show a numbered list one page at a time and return the chosen entry (0-based),
+    // GO_BACK, or SEARCH when offerSearch is set and the customer asks to search.
+    // Only the entries on the current page are rendered, and each page goes out in a single print.
+    private int chooseFromPages(int count, IntFunction<String> label, String title, String backLabel, String prompt, boolean offerSearch)
+    {
+        int pages = (count + PAGE_SIZE - 1) / PAGE_SIZE;
+        int page = 0;
+        while (true)
         {
-            int col = Integer.parseInt(seat.substring(1));
-            if (col < 1 || col > 10)
+            int first = page * PAGE_SIZE;
+            int last = Math.min(first + PAGE_SIZE, count);
+            
+            StringBuilder screen = new StringBuilder(1024);
+            screen.append('\n').append("=".repeat(50)).append('\n');
+            screen.append(title).append('\n');
+            screen.append("=".repeat(50)).append('\n');
+            for (int i = first; i < last; i++)
             {
-                return false;
+                screen.append(i + 1).append(". ").append(label.apply(i)).append('\n');
+            }
+            if (pages > 1)
+            {
+                screen.append("   (page ").append(page + 1).append(" of ").append(pages).append(")\n");
+                if (page + 1 < pages)
+                {
+                    screen.append("N. Next page\n");
+                }
+                if (page > 0)
+                {
+                    screen.append("P. Previous page\n");
+                }
+            }
+            if (offerSearch)
+            {
+                screen.append("S. 🔍 Search movies\n");
+            }
+            screen.append("0. ").append(backLabel).append('\n');
+            screen.append("-".repeat(50)).append('\n');
+            screen.append(prompt).append(" (1-").append(count);
+            if (pages > 1)
+            {
+                screen.append(", N/P for more");
+            }
+            if (offerSearch)
+            {
+                screen.append(", S to search");
+            }
+            screen.append(", 0 to go back): ");
+            out.print(screen);
+            
+            while (true)
+            {
+                String input = scanner.nextLine().trim();
+                if (input.equalsIgnoreCase("n") && page + 1 < pages)
+                {
+                    page++;
+                    break;
+                }
+                if (input.equalsIgnoreCase("p") && page > 0)
+                {
+                    page--;
+                    break;
+                }
+                if (input.equalsIgnoreCase("s") && offerSearch)
+                {
+                    return SEARCH;
+                }
+                try
+                {
+                    int choice = Integer.parseInt(input);
+                    if (choice == 0)
+                    {
+                        return GO_BACK;
+                    }
+                    if (choice >= 1 && choice <= count)
+                    {
+                        return choice - 1;
+                    }
+                }
+                catch (NumberFormatException e)
+                {
+                    // Fall through to the error below
+                }
+                out.print("❌ Invalid choice. Please enter a number from the list: ");
             }
-        } 
-        catch (NumberFormatException e)
-        {
-            return false;
         }
-        
-        return true;
     }
     
-    // Check if seat is available
-    private boolean isSeatAvailable(String seat)
+    // Let the customer pick a showtime; returns null to go back
+    private String chooseShowtime(Movie movie)
     {
-        if (!isValidSeat(seat))
+        List<String> showtimes = movie.getShowtimes();
+        if (showtimes.size() == 1)
         {
-            return false;
+            return showtimes.get(0);
+        }
+        
+        out.println("\n" + "=".repeat(50));
+        out.println("   🕐 SHOWTIMES FOR " + movie.getTitle().toUpperCase());
+        out.println("=".repeat(50));
+        for (int i = 0; i < showtimes.size(); i++)
+        {
+            out.println((i + 1) + ". " + showtimes.get(i));
+        }
+        out.println("0. Go back to genre selection");
+        out.println("-".repeat(50));
+        out.print("🕐 Select a showtime (1-" + showtimes.size() + "): ");
+        
+        while (true)
+        {
+            int choice = getValidnumber();
+            if (choice == 0)
+            {
+                return null;
+            }
+            if (choice >= 1 && choice <= showtimes.size())
+            {
+                return showtimes.get(choice - 1);
+            }
+            out.print("❌ Invalid choice. Please select a valid showtime: ");
         }
-        Boolean booked = seatingMap.get(seat.toUpperCase());
-        return booked != null && !booked;
     }
     
-    // Book a seat
-    private void bookSeat(String seat)
-    {
-        seatingMap.put(seat.toUpperCase(), true);
-    }
     
-    // Save booking details to CSV file
-    public void saveToCSV(String MovieName, String CustomerName, String CustomerEmail, int Tickets, double TotalPrice, String Showtime, String Seats){
-        try {
-                FileWriter write = new FileWriter(bookingsFile, true);
-                LocalDateTime now = LocalDateTime.now();
-                DateTimeFormatter dateFormatter = DateTimeFormatter.ofPattern("yyyy-MM-dd");
-                DateTimeFormatter timeFormatter = DateTimeFormatter.ofPattern("HH:mm:ss");
-
-                String BookingDate = now.format(dateFormatter);
-                String BookingTime = now.format(timeFormatter);
-                
-                // Format all booking data into a CSV line (including seats)
-                String Data_Line = String.format("%d,%s,%s,%s,%d,%.2f,%s,%s,%s,%s",
-                bookingIDCounter++,
-                        MovieName,
-                        CustomerName,
-                        CustomerEmail,
-                        Tickets,
-                        TotalPrice,
-                        BookingDate,
-                        BookingTime,
-                        Showtime,
-                        Seats
-                );
 
-            write.write(Data_Line + "\n");
-            write.close();
-        }   catch (IOException e) {
-            System.out.println("\n❌ An error occurred while saving the booking: " + e.getMessage());
-        }
-    }
-    
     // Handle the ticket booking process
-    private void book_Tickets(String MovieName, double PriceperTicket, int available_tickets, String Showtime){
+    private void book_Tickets(Showing showing, double PriceperTicket, int available_tickets){
+        String MovieName = showing.getMovieName();
+        String Showtime = showing.getShowtime();
         int number_of_tickets;
         
-        System.out.println("\n" + "=".repeat(50));
-        System.out.println("   🎟️  BOOKING TICKETS FOR: " + MovieName.toUpperCase());
-        System.out.println("=".repeat(50));
+        out.println("\n" + "=".repeat(50));
+        out.println("   🎟️  BOOKING TICKETS FOR: " + MovieName.toUpperCase());
+        out.println("=".repeat(50));
         
         // Display seating map
-        displaySeatingMap();
+        displaySeatingMap(showing);
         
         // Get and validate number of tickets
         while (true)
         {
-            System.out.print("🔢 How many tickets would you like to book? ");
+            out.print("🔢 How many tickets would you like to book? ");
             number_of_tickets = getValidnumber();
             if (number_of_tickets <= 0)
             {
-                System.out.println("❌ Please enter a valid number of tickets (must be positive).");
+                out.println("❌ Please enter a valid number of tickets (must be positive).");
                 continue;
             }
             if (number_of_tickets > available_tickets)
             {
-                System.out.println("❌ Sorry, only " + available_tickets + " tickets are available.");
+                out.println("❌ Sorry, only " + available_tickets + " tickets are available.");
                 continue;
             }
             break;
         }
         
-        // Seat selection
-        List<String> selectedSeats = new ArrayList<>();
-        System.out.println("\n" + "-".repeat(50));
-        System.out.println("   🪑 SEAT SELECTION");
-        System.out.println("-".repeat(50));
-        System.out.println("Please select " + number_of_tickets + " seat(s).");
-        System.out.println("Enter seat coordinates (e.g., A1, B5, J10)");
+        // Seat selection - seat codes are parsed to grid indexes once
+        SeatGrid grid = seatInventory.gridFor(showing);
+        List<Integer> selectedSeats = new ArrayList<>();
+        BookingService.BookingResult held = null;
+        out.println("\n" + "-".repeat(50));
+        out.println("   🪑 SEAT SELECTION");
+        out.println("-".repeat(50));
+        out.println("Please select " + number_of_tickets + " seat(s).");
+        out.println("Enter seat coordinates (e.g., A1, B5, J10)");
+        out.println("or type BEST to get the best " + number_of_tickets + " seat(s) next to each other.");
         
-        for (int i = 0; i < number_of_tickets; i++)
+        for (int i = 0; i < number_of_tickets && held == null; i++)
         {
             while (true)
             {
-                System.out.print("🎫 Select seat " + (i + 1) + " of " + number_of_tickets + ": ");
+                out.print("🎫 Select seat " + (i + 1) + " of " + number_of_tickets + ": ");
                 String seat = scanner.nextLine().trim().toUpperCase();
                 
-                if (!isValidSeat(seat))
+                if (i == 0 && seat.equals("BEST"))
+                {
+                    // Pick and hold a block in one step
+                    BookingService.BookingResult best = service.holdBestAvailable(showing, number_of_tickets,
+                            SeatReservations.DEFAULT_HOLD_MILLIS, PriceperTicket);
+                    if (best.isSuccess())
+                    {
+                        held = best;
+                        break;
+                    }
+                    if (best.getStatus() != BookingService.BookingResult.Status.SEATS_TAKEN)
+                    {
+                        printFailure(best);
+                        return;
+                    }
+                    out.println("❌ There are no " + number_of_tickets + " seats together left. Please select your seats one by one.");
+                    continue;
+                }
+                
+                int seatIndex = grid.indexOf(seat);
+                
+                if (seatIndex < 0)
                 {
-                    System.out.println("❌ Invalid seat format. Please enter a valid seat (e.g., A1, B5, J10).");
+                    out.println("❌ Invalid seat format. Please enter a valid seat (e.g., A1, B5, J10).");
                     continue;
                 }
                 
-                if (!isSeatAvailable(seat))
+                if (!grid.isAvailable(seatIndex))
                 {
-                    System.out.println("❌ Seat " + seat + " is already booked. Please select another seat.");
+                    out.println("❌ Seat " + seat + " is already booked. Please select another seat.");
                     continue;
                 }
                 
-                if (selectedSeats.contains(seat))
+                if (selectedSeats.contains(seatIndex))
                 {
-                    System.out.println("❌ Seat " + seat + " is already selected. Please select another seat.");
+                    out.println("❌ Seat " + seat + " is already selected. Please select another seat.");
                     continue;
                 }
                 
-                selectedSeats.add(seat);
-                System.out.println("✓ Seat " + seat + " selected.");
+                selectedSeats.add(seatIndex);
+                out.println("✓ Seat " + seat + " selected.");
                 break;
             }
         }
         
-        // Book the selected seats
-        for (String seat : selectedSeats)
+        // Hold the selected seats while the customer confirms
+        if (held == null)
         {
-            bookSeat(seat);
+            int[] seatBlock = new int[selectedSeats.size()];
+            for (int i = 0; i < seatBlock.length; i++)
+            {
+                seatBlock[i] = selectedSeats.get(i);
+            }
+            held = service.holdSeats(showing, seatBlock, SeatReservations.DEFAULT_HOLD_MILLIS, PriceperTicket);
+            if (!held.isSuccess())
+            {
+                printFailure(held);
+                return;
+            }
+        }
+        SeatHold hold = held.getHold();
+        List<String> seatCodes = new ArrayList<>();
+        for (int seatIndex : hold.getSeats())
+        {
+            seatCodes.add(grid.seatCode(seatIndex));
         }
         
-        String seatsString = String.join(";", selectedSeats);
+        String seatsString = String.join(";", seatCodes);
         
         // Calculate total price
         double TotalPrice = number_of_tickets * PriceperTicket;
         
         // Get customer information
-        System.out.println("\n" + "-".repeat(40));
-        System.out.println("   👤 CUSTOMER INFORMATION");
-        System.out.println("-".repeat(40));
-        System.out.print("📛 Please enter your name: ");
+        out.println("\n" + "-".repeat(40));
+        out.println("   👤 CUSTOMER INFORMATION");
+        out.println("-".repeat(40));
+        out.print("📛 Please enter your name: ");
         String CustomerName = scanner.nextLine();
-        System.out.print("📧 Please enter your email: ");
+        // Default to the logged-in account, so the booking shows up under My Bookings
+        SessionManager.Session session = auth.getSession();
+        if (session != null)
+        {
+            out.print("📧 Please enter your email (Enter for " + session.getEmail() + "): ");
+        }
+        else
+        {
+            out.print("📧 Please enter your email: ");
+        }
         String CustomerEmail = scanner.nextLine();
+        if (CustomerEmail.trim().isEmpty() && session != null)
+        {
+            CustomerEmail = session.getEmail();
+        }
         
         // Display booking summary
-        System.out.println("\n" + "=".repeat(50));
-        System.out.println("   📋 BOOKING SUMMARY");
-        System.out.println("=".repeat(50));
-        System.out.println("🎬 Movie: " + MovieName);
-        System.out.println("🎟️  Number of Tickets: " + number_of_tickets);
-        System.out.println("🪑 Selected Seats: " + seatsString.replace(";", ", "));
-        System.out.println("💰 Price per Ticket: $" + PriceperTicket);
-        System.out.println("💵 Total Price: $" + TotalPrice);
-        System.out.println("👤 Customer Name: " + CustomerName);
-        System.out.println("📧 Customer Email: " + CustomerEmail);
-        System.out.println("🕐 Showtime: " + Showtime);
-        System.out.println("=".repeat(50));
+        out.println("\n" + "=".repeat(50));
+        out.println("   📋 BOOKING SUMMARY");
+        out.println("=".repeat(50));
+        out.println("🎬 Movie: " + MovieName);
+        out.println("🎟️  Number of Tickets: " + number_of_tickets);
+        out.println("🪑 Selected Seats: " + seatsString.replace(";", ", "));
+        out.println("💰 Price per Ticket: $" + PriceperTicket);
+        out.println("💵 Total Price: $" + TotalPrice);
+        out.println("👤 Customer Name: " + CustomerName);
+        out.println("📧 Customer Email: " + CustomerEmail);
+        out.println("🕐 Showtime: " + Showtime);
+        out.println("=".repeat(50));
 
         // Final confirmation
-        System.out.print("\n✅ Confirm booking? (yes/no): ");
+        out.print("\n✅ Confirm booking? (yes/no): ");
         String confirm = getYesNoInput();
         
         if (!confirm.equalsIgnoreCase("yes")){
             // Release the seats if booking is cancelled
-            for (String seat : selectedSeats)
-            {
-                seatingMap.put(seat, false);
-            }
-            System.out.println("\n" + "=".repeat(40));
-            System.out.println("   🚫 BOOKING CANCELLED");
-            System.out.println("   Returning to movie browsing...");
-            System.out.println("=".repeat(40));
+            service.releaseHold(hold);
+            out.println("\n" + "=".repeat(40));
+            out.println("   🚫 BOOKING CANCELLED");
+            out.println("   Returning to movie browsing...");
+            out.println("=".repeat(40));
             return;
         }
 
-        if (confirm.equalsIgnoreCase("yes")){
-            saveToCSV(MovieName, CustomerName, CustomerEmail, number_of_tickets, TotalPrice, Showtime, seatsString);
-            System.out.println("\n");
-            System.out.println("   🎉 BOOKING CONFIRMED!");
-            System.out.println("   🪑 Your seats: " + seatsString.replace(";", ", "));
-            System.out.println("   📧 Tickets have been sent to: " + CustomerEmail);
-            System.out.println(" ");
+        BookingService.BookingResult result = service.confirmHold(hold, new BookingService.Customer(CustomerName, CustomerEmail));
+        if (!result.isSuccess())
+        {
+            printFailure(result);
+            return;
+        }
+        out.println("\n");
+        out.println("   🎉 BOOKING CONFIRMED!");
+        out.println("   🎫 Booking ID: " + result.getBooking().getBookingId());
+        out.println("   🪑 Your seats: " + seatsString.replace(";", ", "));
+        out.println("   📧 Tickets have been sent to: " + CustomerEmail);
+        out.println(" ");
+    }
+    
+    // Explain why seats could not be held or booked
+    private void printFailure(BookingService.BookingResult result)
+    {
+        switch (result.getStatus())
+        {
+            case SEATS_TAKEN:
+                out.println("\n❌ Sorry, one of your seats was just taken by another customer. Please try again.");
+                break;
+            case HOLD_EXPIRED:
+                out.println("\n❌ Your seat hold expired. Please select your seats again.");
+                break;
+            case UNKNOWN_MOVIE:
+                out.println("\n❌ This movie is no longer showing.");
+                break;
+            case INVALID_CUSTOMER:
+                out.println("\n❌ A name and an email are needed to book. Your seats have been released.");
+                break;
+            case INVALID_SEATS:
+                out.println("\n❌ Invalid seat selection. Please try again.");
+                break;
+            default:
+                out.println("\n❌ An error occurred while saving the booking: " + result.getError());
         }
     }
     
@@ -528,23 +519,26 @@ public class BookingTickets {
                 return input;
             }
             else {
-                System.out.print("❌ Invalid input. Please enter 'yes' or 'no': ");
+                out.print("❌ Invalid input. Please enter 'yes' or 'no': ");
             }
         }
     }
 
     // Display detailed movie information
-    public void displayMovieDetails(String movie, double PriceperTicket, String format, int available_tickets, String Showtime)
+    public void displayMovieDetails(Movie movie, Showing showing, int available_tickets)
     {
-        System.out.println("\n" + "=".repeat(50));
-        System.out.println("   🎥 MOVIE DETAILS");
-        System.out.println("=".repeat(50));
-        System.out.println("📖 " + movie);
-        System.out.println("💰 Price per Ticket: $" + PriceperTicket);
-        System.out.println("🎞️  Available Format: " + format);
-        System.out.println("🎟️  Available Tickets: " + available_tickets);
-        System.out.println("🕐 Showtime: " + Showtime);
-        System.out.println("=".repeat(50));
+        SalesCounters.Snapshot sales = SalesCounters.getInstance().forShowing(showing);
+        out.println("\n" + "=".repeat(50));
+        out.println("   🎥 MOVIE DETAILS");
+        out.println("=".repeat(50));
+        out.println("📖 " + movie.getTitle() + " - A great " + movie.getGenre().toLowerCase() + " movie.");
+        out.println("💰 Price per Ticket: $" + movie.getPrice());
+        out.println("🎞️  Available Format: " + movie.getFormat());
+        out.println("⏱️  Duration: " + movie.getDurationText());
+        out.println("🎟️  Available Tickets: " + available_tickets);
+        out.println("📈 Tickets Sold: " + sales.getSeatsSold() + " (" + sales.getSeatsHeld() + " on hold)");
+        out.println("🕐 Showtime: " + showing.getShowtime());
+        out.println("=".repeat(50));
     }   
 
     // Validate and get integer input from user
@@ -557,7 +551,7 @@ public class BookingTickets {
                 scanner.nextLine(); // Consume newline character
                 return number;
             } catch (InputMismatchException e) {
-                System.out.print("❌ Invalid input. Please enter a valid number: ");
+                out.print("❌ Invalid input. Please enter a valid number: ");
                 scanner.nextLine(); // Clear the invalid input from scanner buffer
             }
         }
@@ -1,214 +1,243 @@
+import java.io.PrintStream;
 import java.util.Scanner;
 import java.util.ArrayList;
 
 public class Cancel_booking {
-    private Scanner scanner = new Scanner(System.in);
+    private Scanner scanner;
+    private PrintStream out;
+    private User_authen auth; // Who is logged in at this terminal
+
+    public Cancel_booking() {
+        this(new Scanner(System.in), System.out);
+    }
+
+    public Cancel_booking(Scanner scanner, PrintStream out) {
+        this(scanner, out, new User_authen(scanner, out));
+    }
+
+    // Session-bound constructor: reads and writes through the given console
+    public Cancel_booking(Scanner scanner, PrintStream out, User_authen auth) {
+        this.scanner = scanner;
+        this.out = out;
+        this.auth = auth;
+    }
 
     // Method to cancel a booking
     public void cancelBooking() {
-        System.out.println("\n=== CANCEL RESERVATION ===");
+        out.println("\n=== CANCEL RESERVATION ===");
 
-        // Load all bookings from CSV file
-        ArrayList<My_Bookings.Booking> allBookings = My_Bookings.loadAllBookings();
+        BookingStore store = BookingStore.getInstance();
 
-        if (allBookings.isEmpty()) {
-            System.out.println("No bookings available to cancel.");
+        if (store.size() == 0) {
+            out.println("No bookings available to cancel.");
             return;
         }
 
         try {
-            // Search by Email only
-            System.out.print("Enter your email: ");
-            String email = scanner.nextLine().trim();
+            // Bookings of the logged-in user, from the store's email index
+            SessionManager.Session session = auth.requireLogin();
+            if (session == null) {
+                out.println("You need to be logged in to cancel a booking.");
+                return;
+            }
+            String email = session.getEmail();
 
             ArrayList<My_Bookings.Booking> userBookings = new ArrayList<>();
-            for (My_Bookings.Booking booking : allBookings) {
-                if (booking.getCustomerEmail().equalsIgnoreCase(email) &&
-                        booking.getStatus().equals("Confirmed")) {
+            for (My_Bookings.Booking booking : store.findByEmail(email)) {
+                if (booking.getStatus().equals("Confirmed")) {
                     userBookings.add(booking);
                 }
             }
 
             if (userBookings.isEmpty()) {
-                System.out.println("No confirmed bookings found for email: " + email);
+                out.println("No confirmed bookings found for email: " + email);
                 return;
             }
 
             // Display user's bookings
-            System.out.println("\n=== YOUR CONFIRMED BOOKINGS ===");
+            out.println("\n=== YOUR CONFIRMED BOOKINGS ===");
             for (My_Bookings.Booking booking : userBookings) {
-                System.out.println("─────────────────────────────────────────────");
-                System.out.println("Booking ID: " + booking.getBookingId());
-                System.out.println("Movie: " + booking.getMovieName());
-                System.out.println("Tickets: " + booking.getNumberOfTickets());
-                System.out.println("Total: $" + booking.getTotalPrice());
-                System.out.println("Date: " + booking.getBookingDate());
+                out.println("─────────────────────────────────────────────");
+                out.println("Booking ID: " + booking.getBookingId());
+                out.println("Movie: " + booking.getMovieName());
+                out.println("Tickets: " + booking.getNumberOfTickets());
+                out.println("Total: $" + booking.getTotalPrice());
+                out.println("Date: " + booking.getBookingDate());
             }
-            System.out.println("─────────────────────────────────────────────");
+            out.println("─────────────────────────────────────────────");
 
             // Ask which booking to cancel
-            System.out.print("\nEnter the Booking ID you want to cancel: ");
+            out.print("\nEnter the Booking ID you want to cancel: ");
             int bookingId = scanner.nextInt();
             scanner.nextLine(); // Consume newline
 
-            My_Bookings.Booking bookingToCancel = My_Bookings.findBookingById(bookingId);
-
-            if (bookingToCancel == null) {
-                System.out.println("Booking ID " + bookingId + " not found.");
-                return;
-            }
-
-            // Verify booking belongs to this email
-            if (!bookingToCancel.getCustomerEmail().equalsIgnoreCase(email)) {
-                System.out.println("This booking does not belong to the email you provided.");
-                return;
-            }
-
-            // Check if booking is already cancelled
-            if (bookingToCancel.getStatus().equals("Cancelled")) {
-                System.out.println("This booking has already been cancelled.");
+            BookingService service = BookingService.getInstance();
+            BookingService.CancelResult check = service.checkCancellable(bookingId, session);
+            if (!check.isSuccess()) {
+                printFailure(check, bookingId);
                 return;
             }
+            My_Bookings.Booking bookingToCancel = check.getBooking();
 
             // Display booking summary
-            System.out.println("\n=== BOOKING TO CANCEL ===");
-            System.out.println("Booking ID      : " + bookingToCancel.getBookingId());
-            System.out.println("Movie           : " + bookingToCancel.getMovieName());
-            System.out.println("Tickets         : " + bookingToCancel.getNumberOfTickets());
-            System.out.println("Total Price     : $" + bookingToCancel.getTotalPrice());
-            System.out.println("=".repeat(40));
+            out.println("\n=== BOOKING TO CANCEL ===");
+            out.println("Booking ID      : " + bookingToCancel.getBookingId());
+            out.println("Movie           : " + bookingToCancel.getMovieName());
+            out.println("Tickets         : " + bookingToCancel.getNumberOfTickets());
+            out.println("Total Price     : $" + bookingToCancel.getTotalPrice());
+            out.println("=".repeat(40));
 
             // Confirm cancellation
-            System.out.print("\nAre you sure you want to cancel this booking? (yes/no): ");
+            out.print("\nAre you sure you want to cancel this booking? (yes/no): ");
             String confirmation = getValidYesNoInput();
             
             if (!confirmation.equalsIgnoreCase("yes")) {
-                System.out.println("Cancellation aborted. Your booking remains active.");
+                out.println("Cancellation aborted. Your booking remains active.");
                 return;
             }
 
-            // Cancel the booking and update in CSV file
-            bookingToCancel.setStatus("Cancelled");
-            My_Bookings.updateBookingInFile(bookingToCancel);
+            // Cancel the booking and record the change in the booking journal
+            BookingService.CancelResult result = service.cancel(bookingId, auth.getSession());
+            if (!result.isSuccess()) {
+                printFailure(result, bookingId);
+                return;
+            }
 
-            System.out.println("\n✓ Booking cancelled successfully!");
-            System.out.println("Booking ID: " + bookingToCancel.getBookingId());
-            System.out.println("Refund of $" + bookingToCancel.getTotalPrice() +
+            out.println("\n✓ Booking cancelled successfully!");
+            out.println("Booking ID: " + bookingToCancel.getBookingId());
+            out.println("Refund of $" + bookingToCancel.getTotalPrice() +
                     " will be processed to " + bookingToCancel.getCustomerEmail());
-            System.out.println("The booking status has been updated in the system.");
+            out.println("The booking status has been updated in the system.");
 
         } catch (Exception e) {
-            System.out.println("Invalid input! Please try again.");
+            out.println("Invalid input! Please try again.");
             scanner.nextLine(); // Clear invalid input
         }
     }
 
     // Method to update booking status (for admin or system use)
     public void updateBookingStatus() {
-        System.out.println("\n=== UPDATE BOOKING STATUS ===");
+        out.println("\n=== UPDATE BOOKING STATUS ===");
 
-        ArrayList<My_Bookings.Booking> allBookings = My_Bookings.loadAllBookings();
+        BookingStore store = BookingStore.getInstance();
 
-        if (allBookings.isEmpty()) {
-            System.out.println("No bookings available.");
+        if (store.size() == 0) {
+            out.println("No bookings available.");
             return;
         }
 
-        System.out.print("Enter Booking ID to update: ");
+        out.print("Enter Booking ID to update: ");
 
         try {
             int bookingId = scanner.nextInt();
             scanner.nextLine(); // Consume newline
 
-            My_Bookings.Booking booking = My_Bookings.findBookingById(bookingId);
+            My_Bookings.Booking booking = store.findById(bookingId);
 
             if (booking == null) {
-                System.out.println("Booking ID " + bookingId + " not found.");
+                out.println("Booking ID " + bookingId + " not found.");
                 return;
             }
 
             // Display current booking details
-            System.out.println("\n=== CURRENT BOOKING DETAILS ===");
-            System.out.println("Booking ID: " + booking.getBookingId());
-            System.out.println("Movie: " + booking.getMovieName());
-            System.out.println("Customer: " + booking.getCustomerName());
-            System.out.println("Current Status: " + booking.getStatus());
-            System.out.println("Current Tickets: " + booking.getNumberOfTickets());
+            out.println("\n=== CURRENT BOOKING DETAILS ===");
+            out.println("Booking ID: " + booking.getBookingId());
+            out.println("Movie: " + booking.getMovieName());
+            out.println("Customer: " + booking.getCustomerName());
+            out.println("Current Status: " + booking.getStatus());
+            out.println("Current Tickets: " + booking.getNumberOfTickets());
 
             // Update options
-            System.out.println("\n=== UPDATE OPTIONS ===");
-            System.out.println("1. Change Status");
-            System.out.println("2. Modify Number of Tickets");
-            System.out.println("3. Cancel and Return");
-            System.out.print("Enter your choice: ");
+            out.println("\n=== UPDATE OPTIONS ===");
+            out.println("1. Change Status");
+            out.println("2. Modify Number of Tickets");
+            out.println("3. Cancel and Return");
+            out.print("Enter your choice: ");
 
             int updateChoice = scanner.nextInt();
             scanner.nextLine(); // Consume newline
 
-            boolean updated = false;
-
             switch (updateChoice) {
                 case 1:
                     // Change status
-                    System.out.println("\nSelect new status:");
-                    System.out.println("1. Confirmed");
-                    System.out.println("2. Cancelled");
-                    System.out.print("Enter choice: ");
+                    out.println("\nSelect new status:");
+                    out.println("1. Confirmed");
+                    out.println("2. Cancelled");
+                    out.print("Enter choice: ");
                     int statusChoice = scanner.nextInt();
                     scanner.nextLine();
 
                     if (statusChoice == 1) {
-                        booking.setStatus("Confirmed");
-                        System.out.println("✓ Status updated to: Confirmed");
-                        updated = true;
+                        My_Bookings.Booking updated = store.updateStatus(bookingId, "Confirmed");
+                        if (updated != null && !"Confirmed".equals(updated.getStatus())) {
+                            out.println("❌ Cannot reinstate: some of its seats have been booked by someone else.");
+                            out.println("Status left as: " + updated.getStatus());
+                            break;
+                        }
+                        out.println("✓ Status updated to: Confirmed");
+                        out.println("Changes saved to file successfully.");
                     } else if (statusChoice == 2) {
-                        booking.setStatus("Cancelled");
-                        System.out.println("✓ Status updated to: Cancelled");
-                        updated = true;
+                        store.updateStatus(bookingId, "Cancelled");
+                        out.println("✓ Status updated to: Cancelled");
+                        out.println("Changes saved to file successfully.");
                     } else {
-                        System.out.println("Invalid choice.");
+                        out.println("Invalid choice.");
                     }
                     break;
 
                 case 2:
                     // Modify tickets
-                    System.out.print("Enter new number of tickets: ");
+                    out.print("Enter new number of tickets: ");
                     int newTickets = scanner.nextInt();
                     scanner.nextLine();
 
                     if (newTickets <= 0) {
-                        System.out.println("Invalid number of tickets.");
+                        out.println("Invalid number of tickets.");
                     } else {
                         int oldTickets = booking.getNumberOfTickets();
                         double oldTotal = booking.getTotalPrice();
-                        booking.setNumberOfTickets(newTickets);
-                        System.out.println("✓ Tickets updated from " + oldTickets + " to " + newTickets);
-                        System.out.println("New Total: $" + booking.getTotalPrice() +
+                        store.updateTickets(bookingId, newTickets);
+                        out.println("✓ Tickets updated from " + oldTickets + " to " + newTickets);
+                        out.println("New Total: $" + booking.getTotalPrice() +
                                 " (Previous: $" + oldTotal + ")");
-                        updated = true;
+                        out.println("Changes saved to file successfully.");
                     }
                     break;
 
                 case 3:
-                    System.out.println("Update cancelled.");
+                    out.println("Update cancelled.");
                     return;
 
                 default:
-                    System.out.println("Invalid choice.");
-            }
-
-            // Save changes to CSV file if any updates were made
-            if (updated) {
-                My_Bookings.updateBookingInFile(booking);
-                System.out.println("Changes saved to file successfully.");
+                    out.println("Invalid choice.");
             }
 
         } catch (Exception e) {
-            System.out.println("Invalid input! Please try again.");
+            out.println("Invalid input! Please try again.");
             scanner.nextLine(); // Clear invalid input
         }
     }
 
+    // Explain why a booking cannot be cancelled
+    private void printFailure(BookingService.CancelResult result, int bookingId) {
+        switch (result.getStatus()) {
+            case NOT_FOUND:
+                out.println("Booking ID " + bookingId + " not found.");
+                break;
+            case NOT_OWNER:
+                out.println("This booking does not belong to your account.");
+                break;
+            case ALREADY_CANCELLED:
+                out.println("This booking has already been cancelled.");
+                break;
+            case NOT_LOGGED_IN:
+                out.println("Your session has expired. Please log in again.");
+                break;
+            default:
+                out.println("Error saving bookings: " + result.getError());
+        }
+    }
+
     // Helper method to validate yes/no input
     private String getValidYesNoInput() {
         while (true) {
@@ -216,7 +245,7 @@ public class Cancel_booking {
             if (input.equalsIgnoreCase("yes") || input.equalsIgnoreCase("no")) {
                 return input;
             } else {
-                System.out.print("Please enter 'yes' or 'no': ");
+                out.print("Please enter 'yes' or 'no': ");
             }
         }
     }
@@ -0,0 +1,118 @@
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.concurrent.TimeUnit;
+
+// Reloads movies.csv when it changes on disk.
+// A daemon thread watches the file's directory. When the file is written or replaced, it waits
+// for the writes to settle, parses the file into a new MovieCatalogue and checks it. A valid
+// catalogue is published with one reference swap; an invalid one is reported and the current
+// catalogue stays in place. Parsing happens on the watcher thread, so bookings never wait on it.
+// Sessions pick the new catalogue up the next time they start browsing.
+// The settle delay can be changed with -Dbooking.catalogue.settle.ms (default 250).
+public class CatalogueWatcher implements Runnable {
+    static final long SETTLE_MILLIS = Long.getLong("booking.catalogue.settle.ms", 250);
+
+    private static CatalogueWatcher instance;
+
+    private final Path file;
+    private final WatchService watchService;
+
+    private CatalogueWatcher(Path file) throws IOException {
+        this.file = file.toAbsolutePath();
+        this.watchService = FileSystems.getDefault().newWatchService();
+        this.file.getParent().register(watchService,
+                StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY);
+    }
+
+    // Start watching movies.csv; later calls return the running watcher
+    public static synchronized CatalogueWatcher start() {
+        if (instance == null) {
+            MovieCatalogue.current(); // Load the first catalogue before watching for changes
+            try {
+                instance = new CatalogueWatcher(Paths.get(MovieCatalogue.MOVIES_FILE));
+            } catch (IOException e) {
+                System.out.println("❌ Movie catalogue changes will not be picked up: " + e.getMessage());
+                return null;
+            }
+            Thread thread = new Thread(instance, "catalogue-watcher");
+            thread.setDaemon(true);
+            thread.start();
+        }
+        return instance;
+    }
+
+    @Override
+    public void run() {
+        try {
+            while (true) {
+                WatchKey key = watchService.take();
+                boolean changed = concernsCatalogue(key);
+                if (!key.reset()) {
+                    System.out.println("❌ Stopped watching " + file.getParent() + " for movie catalogue changes");
+                    return;
+                }
+                if (!changed) {
+                    continue;
+                }
+
+                // Let the writer finish, and fold any events that arrive meanwhile into this reload
+                WatchKey more;
+                while ((more = watchService.poll(SETTLE_MILLIS, TimeUnit.MILLISECONDS)) != null) {
+                    more.pollEvents();
+                    more.reset();
+                }
+                reload();
+            }
+        } catch (InterruptedException | ClosedWatchServiceException e) {
+            // Shutting down
+        }
+    }
+
+    // Parse, check and publish the catalogue file; returns whether it was published
+    public boolean reload() {
+        MovieCatalogue catalogue;
+        try {
+            catalogue = MovieCatalogue.load(file.toString());
+        } catch (IOException e) {
+            System.out.println("❌ Could not reload movies: " + e.getMessage());
+            return false;
+        }
+
+        if (!catalogue.getProblems().isEmpty()) {
+            System.out.println("❌ " + file.getFileName() + " was not reloaded; keeping the current catalogue:");
+            for (String problem : catalogue.getProblems()) {
+                System.out.println("   " + problem);
+            }
+            return false;
+        }
+        if (catalogue.size() == 0) {
+            System.out.println("❌ " + file.getFileName() + " has no movies; keeping the current catalogue.");
+            return false;
+        }
+
+        MovieCatalogue.publish(catalogue);
+        MovieSearchIndex.catalogueChanged(catalogue); // Re-index here rather than on the next search
+        System.out.println("🎬 Movie catalogue reloaded: " + catalogue.size() + " movies in "
+                + catalogue.getGenres().size() + " genres.");
+        return true;
+    }
+
+    private boolean concernsCatalogue(WatchKey key) {
+        boolean changed = false;
+        for (WatchEvent<?> event : key.pollEvents()) {
+            if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                changed = true; // Events were lost; reload to be safe
+            } else if (file.getFileName().equals(event.context())) {
+                changed = true;
+            }
+        }
+        return changed;
+    }
+}
@@ -0,0 +1,253 @@
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.Arrays;
+
+// RFC 4180 CSV reader.
+// Records are read into one reused char buffer and fields are kept as (start, end) offsets into
+// it, so nothing is allocated per field until a caller asks for a String. Scanning one column of
+// a large file therefore only materializes that column. Quoted fields may contain commas, quotes
+// ("" escapes) and line breaks; both LF and CRLF line endings are accepted.
+//
+// Field values returned by field() are only valid until the next call to next().
+public final class CsvReader implements Closeable {
+    private final Reader in;
+    private final char[] buffer = new char[8192];
+    private int pos = 0;
+    private int limit = 0;
+
+    private char[] record = new char[256];
+    private int recordLength = 0;
+    private int[] fieldStart = new int[16];
+    private int[] fieldEnd = new int[16];
+    private int fieldCount = 0;
+
+    public CsvReader(Reader in) {
+        this.in = in;
+    }
+
+    // Advance to the next record; returns false at end of input
+    public boolean next() throws IOException {
+        recordLength = 0;
+        fieldCount = 0;
+        int start = 0;
+        boolean inQuotes = false;
+        boolean wasQuoted = false;
+        boolean sawAny = false;
+
+        while (true) {
+            int c = read();
+            if (c < 0) {
+                if (!sawAny) {
+                    return false;
+                }
+                endField(start);
+                return true;
+            }
+            sawAny = true;
+
+            if (inQuotes) {
+                if (c == '"') {
+                    if (peek() == '"') {
+                        pos++;
+                        append('"');
+                    } else {
+                        inQuotes = false;
+                    }
+                } else {
+                    append((char) c);
+                }
+            } else if (c == '"' && recordLength == start && !wasQuoted) {
+                inQuotes = true;
+                wasQuoted = true;
+            } else if (c == ',') {
+                endField(start);
+                start = recordLength;
+                wasQuoted = false;
+            } else if (c == '\n') {
+                endField(start);
+                return true;
+            } else if (c == '\r') {
+                if (peek() == '\n') {
+                    pos++;
+                }
+                endField(start);
+                return true;
+            } else {
+                append((char) c);
+            }
+        }
+    }
+
+    public int fieldCount() {
+        return fieldCount;
+    }
+
+    // Zero-copy view of a field
+    public CharSequence field(int index) {
+        return new Slice(fieldStart[index], fieldEnd[index]);
+    }
+
+    // Zero-copy view of a field, with surrounding whitespace removed
+    public CharSequence trimmedField(int index) {
+        int start = trimStart(index);
+        return new Slice(start, trimEnd(index, start));
+    }
+
+    // Materialize a field, with surrounding whitespace removed
+    public String getString(int index) {
+        int start = trimStart(index);
+        int end = trimEnd(index, start);
+        return new String(record, start, end - start);
+    }
+
+    public boolean isEmpty(int index) {
+        int start = trimStart(index);
+        return trimEnd(index, start) == start;
+    }
+
+    // Parse an integer field in place
+    public int getInt(int index) {
+        int start = trimStart(index);
+        int end = trimEnd(index, start);
+        if (start == end) {
+            throw new NumberFormatException("Empty field " + index);
+        }
+        boolean negative = record[start] == '-';
+        int i = negative || record[start] == '+' ? start + 1 : start;
+        if (i == end) {
+            throw new NumberFormatException("Not a number: " + getString(index));
+        }
+        long value = 0;
+        for (; i < end; i++) {
+            char c = record[i];
+            if (c < '0' || c > '9') {
+                throw new NumberFormatException("Not a number: " + getString(index));
+            }
+            value = value * 10 + (c - '0');
+            if (value > Integer.MAX_VALUE + 1L) {
+                throw new NumberFormatException("Number out of range: " + getString(index));
+            }
+        }
+        value = negative ? -value : value;
+        if (value > Integer.MAX_VALUE) {
+            throw new NumberFormatException("Number out of range: " + getString(index));
+        }
+        return (int) value;
+    }
+
+    public double getDouble(int index) {
+        return Double.parseDouble(getString(index));
+    }
+
+    // Compare a trimmed field without materializing it
+    public boolean fieldEqualsIgnoreCase(int index, String value) {
+        int start = trimStart(index);
+        int end = trimEnd(index, start);
+        if (end - start != value.length()) {
+            return false;
+        }
+        for (int i = 0; i < value.length(); i++) {
+            char a = record[start + i];
+            char b = value.charAt(i);
+            if (a != b && Character.toLowerCase(a) != Character.toLowerCase(b)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+
+    private int trimStart(int index) {
+        int start = fieldStart[index];
+        int end = fieldEnd[index];
+        while (start < end && record[start] <= ' ') {
+            start++;
+        }
+        return start;
+    }
+
+    private int trimEnd(int index, int start) {
+        int end = fieldEnd[index];
+        while (end > start && record[end - 1] <= ' ') {
+            end--;
+        }
+        return end;
+    }
+
+    private void endField(int start) {
+        if (fieldCount == fieldStart.length) {
+            fieldStart = Arrays.copyOf(fieldStart, fieldCount * 2);
+            fieldEnd = Arrays.copyOf(fieldEnd, fieldCount * 2);
+        }
+        fieldStart[fieldCount] = start;
+        fieldEnd[fieldCount] = recordLength;
+        fieldCount++;
+    }
+
+    private void append(char c) {
+        if (recordLength == record.length) {
+            record = Arrays.copyOf(record, recordLength * 2);
+        }
+        record[recordLength++] = c;
+    }
+
+    private int read() throws IOException {
+        if (pos == limit && !fill()) {
+            return -1;
+        }
+        return buffer[pos++];
+    }
+
+    private int peek() throws IOException {
+        if (pos == limit && !fill()) {
+            return -1;
+        }
+        return buffer[pos];
+    }
+
+    private boolean fill() throws IOException {
+        int n = in.read(buffer, 0, buffer.length);
+        if (n <= 0) {
+            return false;
+        }
+        pos = 0;
+        limit = n;
+        return true;
+    }
+
+    // Window onto the shared record buffer
+    private final class Slice implements CharSequence {
+        private final int start;
+        private final int end;
+
+        Slice(int start, int end) {
+            this.start = start;
+            this.end = end;
+        }
+
+        @Override
+        public int length() {
+            return end - start;
+        }
+
+        @Override
+        public char charAt(int index) {
+            return record[start + index];
+        }
+
+        @Override
+        public CharSequence subSequence(int from, int to) {
+            return new Slice(start + from, start + to);
+        }
+
+        @Override
+        public String toString() {
+            return new String(record, start, end - start);
+        }
+    }
+}
@@ -0,0 +1,85 @@
+import java.io.IOException;
+import java.io.Writer;
+
+// RFC 4180 CSV writer.
+// Fields that contain a comma, quote or line break are quoted, with quotes doubled;
+// everything else is written as is, so existing files keep their plain format.
+public final class CsvWriter {
+    private final Writer out;
+    private final StringBuilder row = new StringBuilder(128);
+
+    public CsvWriter(Writer out) {
+        this.out = out;
+    }
+
+    public void writeRow(String... fields) throws IOException {
+        row.setLength(0);
+        appendRow(row, fields);
+        row.append('\n');
+        out.append(row);
+    }
+
+    public void flush() throws IOException {
+        out.flush();
+    }
+
+    // One CSV line, without the line break
+    public static String formatRow(String... fields) {
+        StringBuilder line = new StringBuilder(128);
+        appendRow(line, fields);
+        return line.toString();
+    }
+
+    public static void appendRow(StringBuilder line, String... fields) {
+        for (int i = 0; i < fields.length; i++) {
+            if (i > 0) {
+                line.append(',');
+            }
+            appendField(line, fields[i]);
+        }
+    }
+
+    public static void appendField(StringBuilder line, String field) {
+        if (field == null) {
+            return;
+        }
+        if (!needsQuotes(field)) {
+            line.append(field);
+            return;
+        }
+        line.append('"');
+        for (int i = 0; i < field.length(); i++) {
+            char c = field.charAt(i);
+            if (c == '"') {
+                line.append('"');
+            }
+            line.append(c);
+        }
+        line.append('"');
+    }
+
+    // Money with two decimals, rounded half-up, without going through String.format
+    public static String formatPrice(double amount) {
+        long cents = Math.round(Math.abs(amount) * 100);
+        StringBuilder price = new StringBuilder(12);
+        if (amount < 0 && cents != 0) {
+            price.append('-');
+        }
+        price.append(cents / 100).append('.');
+        long fraction = cents % 100;
+        if (fraction < 10) {
+            price.append('0');
+        }
+        return price.append(fraction).toString();
+    }
+
+    private static boolean needsQuotes(String field) {
+        for (int i = 0; i < field.length(); i++) {
+            char c = field.charAt(i);
+            if (c == ',' || c == '"' || c == '\n' || c == '\r') {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -1,10 +1,22 @@
 // Source code is decompiled from a .class file using FernFlower decompiler (from Intellij IDEA).
+import java.io.PrintStream;
+
 public class Display_Menu{
+   private final PrintStream out;
+
+   public Display_Menu() {
+      this(System.out);
+   }
+
+   public Display_Menu(PrintStream out) {
+      this.out = out;
+   }
+
    public void showMenu() {
-      System.out.println("\n=== TICKET RESERVATION SYSTEM ===");
-      System.out.println("1. Browse and Book Ticket for Movies");
-      System.out.println("2. View My Reservations");
-      System.out.println("3. Cancel Reservation");
-      System.out.println("4. Exit");
+      out.println("\n=== TICKET RESERVATION SYSTEM ===");
+      out.println("1. Browse and Book Ticket for Movies");
+      out.println("2. View My Reservations");
+      out.println("3. Cancel Reservation");
+      out.println("4. Exit");
    }
 }
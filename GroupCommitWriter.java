@@ -0,0 +1,188 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+// Append-only file writer with group commit.
+// Records from all sessions go into one queue. A single writer thread keeps the file open,
+// takes whatever is queued (up to the batch size, waiting at most the linger time for more),
+// writes it with one call and makes it durable with one force(), then completes every caller's
+// future. Under load many bookings share one fsync instead of paying for their own.
+//
+// -Dbooking.commit.batch sets the most records per batch (default 128) and
+// -Dbooking.commit.linger.ms how long a batch may wait to fill up (default 1).
+public class GroupCommitWriter implements AutoCloseable {
+    static final int DEFAULT_BATCH_SIZE = Integer.getInteger("booking.commit.batch", 128);
+    static final long DEFAULT_LINGER_MILLIS = Long.getLong("booking.commit.linger.ms", 1);
+
+    private final FileChannel channel;
+    private final int batchSize;
+    private final long lingerNanos;
+    private final BlockingQueue<PendingRecord> queue = new LinkedBlockingQueue<>();
+    private final Thread writerThread;
+    private final Object closeLock = new Object(); // Makes the closed check and the enqueue in write() one step
+    private volatile boolean closed = false;
+
+    // A record waiting to be written, and the future its caller waits on
+    private static final class PendingRecord {
+        final String record;
+        final CompletableFuture<Void> durable = new CompletableFuture<>();
+
+        PendingRecord(String record) {
+            this.record = record;
+        }
+    }
+
+    public GroupCommitWriter(Path file) throws IOException {
+        this(file, DEFAULT_BATCH_SIZE, DEFAULT_LINGER_MILLIS);
+    }
+
+    public GroupCommitWriter(Path file, int batchSize, long lingerMillis) throws IOException {
+        this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        this.batchSize = Math.max(1, batchSize);
+        this.lingerNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(0, lingerMillis));
+        this.writerThread = new Thread(this::writeLoop, "booking-writer");
+        this.writerThread.setDaemon(true);
+        this.writerThread.start();
+    }
+
+    // Queue a record (including its line break); the future completes once it is on disk
+    public CompletableFuture<Void> write(String record) {
+        PendingRecord pending = new PendingRecord(record);
+        synchronized (closeLock) {
+            if (!closed) {
+                queue.add(pending);
+                return pending.durable;
+            }
+        }
+        pending.durable.completeExceptionally(new IOException("Booking writer is closed"));
+        return pending.durable;
+    }
+
+    // Wait until everything queued so far is durable
+    public void flush() throws IOException {
+        await(write(""));
+    }
+
+    // Flush, stop the writer thread and close the file
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        try {
+            flush();
+        } finally {
+            synchronized (closeLock) {
+                closed = true; // Nothing is queued after this
+            }
+            writerThread.interrupt();
+            try {
+                writerThread.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            failQueued(); // Anything the writer thread did not get to before it stopped
+            channel.close();
+        }
+    }
+
+    // Block until a future from write() completes, rethrowing its I/O error.
+    // No timeout is needed: every queued record is completed, either by the writer thread or,
+    // once the writer is closed, failed by close() after the thread has stopped, and write()
+    // never queues a record after close() has set the closed flag.
+    static void await(CompletableFuture<?> durable) throws IOException {
+        try {
+            durable.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while waiting for the booking to be saved");
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+            throw new IOException(cause);
+        }
+    }
+
+    private void writeLoop() {
+        List<PendingRecord> batch = new ArrayList<>(batchSize);
+        StringBuilder text = new StringBuilder(batchSize * 128);
+        while (true) {
+            try {
+                batch.add(queue.take());
+                queue.drainTo(batch, batchSize - batch.size());
+                long deadline = System.nanoTime() + lingerNanos;
+                while (batch.size() < batchSize) {
+                    long wait = deadline - System.nanoTime();
+                    PendingRecord next = wait > 0 ? queue.poll(wait, TimeUnit.NANOSECONDS) : null;
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                    queue.drainTo(batch, batchSize - batch.size());
+                }
+            } catch (InterruptedException e) {
+                if (closed && batch.isEmpty() && queue.isEmpty()) {
+                    return;
+                }
+                // close() flushed first, so only records queued after that are left; fail them
+            }
+
+            text.setLength(0);
+            for (PendingRecord pending : batch) {
+                text.append(pending.record);
+            }
+            IOException error = writeAndForce(text);
+            for (PendingRecord pending : batch) {
+                if (error == null) {
+                    pending.durable.complete(null);
+                } else {
+                    pending.durable.completeExceptionally(error);
+                }
+            }
+            batch.clear();
+
+            if (closed) {
+                failQueued();
+                return;
+            }
+        }
+    }
+
+    private void failQueued() {
+        PendingRecord late;
+        while ((late = queue.poll()) != null) {
+            late.durable.completeExceptionally(new IOException("Booking writer is closed"));
+        }
+    }
+
+    private IOException writeAndForce(CharSequence text) {
+        if (closed && text.length() > 0) {
+            return new IOException("Booking writer is closed");
+        }
+        try {
+            if (text.length() > 0) {
+                ByteBuffer bytes = StandardCharsets.UTF_8.encode(CharBuffer.wrap(text));
+                while (bytes.hasRemaining()) {
+                    channel.write(bytes);
+                }
+                channel.force(false);
+            }
+            return null;
+        } catch (IOException e) {
+            return e;
+        }
+    }
+}
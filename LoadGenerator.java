@@ -0,0 +1,518 @@
+import java.io.File;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+// Sales-rush simulator.
+// Runs thousands of virtual customers against BookingService, each on its own thread from
+// BookingServer.newThreadPerTaskExecutor(). A customer repeatedly thinks, then browses, books,
+// cancels one of their own bookings or logs in, following the configured mix. Booking holds the
+// seats, thinks again while "filling in details", then confirms, so slow customers let their
+// holds expire just like at the box office.
+// At the end it reports throughput, p50/p99/p99.9 latency per operation, the outcome counts,
+// hold expiries, and checks every targeted showing for seats sold twice.
+//
+// The run writes bookings and users to the working directory like the application does,
+// so start it from a scratch directory that holds a copy of movies.csv.
+//
+// Usage: java LoadGenerator [--customers 1000] [--seconds 30] [--think-ms 200]
+//                           [--pattern hot|uniform] [--mix browse=50,book=35,cancel=10,login=5]
+//                           [--showings 1] [--max-seats 4] [--hold-ms 5000] [--abandon 5] [--force]
+//   --showings  how many movies (first showtime, today) the customers compete for
+//   --abandon   percentage of customers who walk away from a hold without releasing it
+//   Logins hash passwords at -Dbooking.pbkdf2.iterations; lower it to keep sign-ups fast.
+public class LoadGenerator {
+    enum Operation { BROWSE, BOOK, CANCEL, LOGIN }
+
+    private final int customers;
+    private final long durationMillis;
+    private final long thinkMillis;
+    private final boolean hotCentre;
+    private final int[] mix = new int[Operation.values().length]; // Cumulative weights
+    private final int maxSeats;
+    private final long holdMillis;
+    private final int abandonPercent;
+    private final List<Showing> showings = new ArrayList<>();
+
+    private final BookingService service = BookingService.getInstance();
+    private final SeatInventory seatInventory = SeatInventory.getInstance();
+    private final Map<Operation, LatencyHistogram> latencies = new EnumMap<>(Operation.class);
+    private final ConcurrentHashMap<String, LongAdder> outcomes = new ConcurrentHashMap<>();
+    private final String runId = Long.toString(System.currentTimeMillis(), 36);
+
+    // Log-linear latency histogram: 32 sub-buckets per power of two of nanoseconds,
+    // so percentiles are within about 3% while recording stays a single atomic add
+    static final class LatencyHistogram {
+        private static final int SUB_BUCKET_BITS = 5;
+        private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+        private final AtomicLongArray counts = new AtomicLongArray(64 * SUB_BUCKETS);
+        private final LongAdder total = new LongAdder();
+
+        void record(long nanos) {
+            counts.incrementAndGet(bucket(Math.max(1, nanos)));
+            total.increment();
+        }
+
+        long getCount() {
+            return total.sum();
+        }
+
+        // Upper bound of the bucket holding the given percentile, in nanoseconds
+        long percentile(double percent) {
+            long count = total.sum();
+            if (count == 0) {
+                return 0;
+            }
+            long rank = (long) Math.ceil(count * percent / 100.0);
+            long seen = 0;
+            for (int i = 0; i < counts.length(); i++) {
+                seen += counts.get(i);
+                if (seen >= rank) {
+                    return upperBound(i);
+                }
+            }
+            return upperBound(counts.length() - 1);
+        }
+
+        private static int bucket(long value) {
+            int magnitude = 63 - Long.numberOfLeadingZeros(value);
+            if (magnitude < SUB_BUCKET_BITS) {
+                return (int) value; // Small values are exact
+            }
+            int sub = (int) (value >>> (magnitude - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+            return (magnitude - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + sub;
+        }
+
+        private static long upperBound(int bucket) {
+            int magnitude = bucket / SUB_BUCKETS + SUB_BUCKET_BITS - 1;
+            if (magnitude < SUB_BUCKET_BITS) {
+                return bucket;
+            }
+            long sub = bucket % SUB_BUCKETS;
+            return ((SUB_BUCKETS + sub + 1) << (magnitude - SUB_BUCKET_BITS)) - 1;
+        }
+    }
+
+    // One simulated customer and the bookings they made during the run
+    private final class Customer implements Runnable {
+        private final BookingService.Customer details;
+        private final String password;
+        private final boolean abandons;
+        private final long deadline;
+        private final List<Integer> bookings = new ArrayList<>();
+        private boolean registered = false;
+
+        Customer(int number, long deadline) {
+            this.details = new BookingService.Customer("Load Customer " + number, "load-" + runId + "-" + number + "@gmail.com");
+            this.password = "load-" + number;
+            this.abandons = ThreadLocalRandom.current().nextInt(100) < abandonPercent;
+            this.deadline = deadline;
+        }
+
+        @Override
+        public void run() {
+            try {
+                while (System.currentTimeMillis() < deadline) {
+                    think();
+                    switch (nextOperation()) {
+                        case BROWSE:
+                            browse();
+                            break;
+                        case BOOK:
+                            book();
+                            break;
+                        case CANCEL:
+                            if (bookings.isEmpty()) {
+                                book(); // Nothing to cancel yet
+                            } else {
+                                cancel();
+                            }
+                            break;
+                        case LOGIN:
+                            login();
+                            break;
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (RuntimeException e) {
+                count("ERROR " + e.getClass().getSimpleName());
+            }
+        }
+
+        // Look at a movie's details and seat availability, as the browse screen does
+        private void browse() {
+            Showing showing = pickShowing();
+            long start = System.nanoTime();
+            Movie movie = MovieCatalogue.current().findMovie(showing.getMovieName());
+            int available = seatInventory.getAvailableSeatsCount(showing);
+            SalesCounters.getInstance().forShowing(showing);
+            MovieSearchIndex.getInstance().search(movie != null ? movie.getGenre() : showing.getMovieName());
+            latencies.get(Operation.BROWSE).record(System.nanoTime() - start);
+            count(available == 0 ? "BROWSE SOLD_OUT" : "BROWSE OK");
+        }
+
+        private void book() throws InterruptedException {
+            Showing showing = pickShowing();
+            int[] seats = pickSeats(seatInventory.gridFor(showing), 1 + ThreadLocalRandom.current().nextInt(maxSeats));
+            if (seats == null) {
+                count("BOOK SOLD_OUT");
+                return;
+            }
+
+            long start = System.nanoTime();
+            BookingService.BookingResult held = service.holdSeats(showing, seats, holdMillis);
+            long holdNanos = System.nanoTime() - start;
+            if (!held.isSuccess()) {
+                latencies.get(Operation.BOOK).record(holdNanos);
+                count("BOOK " + held.getStatus());
+                return;
+            }
+            if (abandons) {
+                count("BOOK ABANDONED");
+                return; // Left to expire
+            }
+
+            think(); // Filling in name and email
+            start = System.nanoTime();
+            BookingService.BookingResult result = service.confirmHold(held.getHold(), details);
+            latencies.get(Operation.BOOK).record(holdNanos + System.nanoTime() - start);
+            count("BOOK " + result.getStatus());
+            if (result.getStatus() == BookingService.BookingResult.Status.BOOKED) {
+                bookings.add(result.getBooking().getBookingId());
+            }
+        }
+
+        private void cancel() {
+            int bookingId = bookings.remove(ThreadLocalRandom.current().nextInt(bookings.size()));
+            long start = System.nanoTime();
+            BookingService.CancelResult result = service.cancel(bookingId, details.getEmail());
+            latencies.get(Operation.CANCEL).record(System.nanoTime() - start);
+            count("CANCEL " + result.getStatus());
+        }
+
+        // Sign up on the first login, log in after that
+        private void login() {
+            long start = System.nanoTime();
+            BookingService.LoginResult result = registered
+                    ? service.login(details.getEmail(), password)
+                    : service.register(details.getEmail(), password, details.getName());
+            latencies.get(Operation.LOGIN).record(System.nanoTime() - start);
+            count((registered ? "LOGIN " : "SIGN_UP ") + result.getStatus());
+            if (!registered && (result.isSuccess() || result.getStatus() == BookingService.LoginResult.Status.EMAIL_TAKEN)) {
+                registered = true;
+            }
+        }
+
+        // Exponentially distributed pause with the configured mean
+        private void think() throws InterruptedException {
+            if (thinkMillis > 0) {
+                long pause = (long) (-thinkMillis * Math.log(1 - ThreadLocalRandom.current().nextDouble()));
+                Thread.sleep(Math.min(pause, thinkMillis * 20));
+            }
+        }
+    }
+
+    LoadGenerator(int customers, long durationMillis, long thinkMillis, boolean hotCentre, Map<Operation, Integer> weights,
+                  int showingCount, int maxSeats, long holdMillis, int abandonPercent) {
+        this.customers = customers;
+        this.durationMillis = durationMillis;
+        this.thinkMillis = thinkMillis;
+        this.hotCentre = hotCentre;
+        this.maxSeats = maxSeats;
+        this.holdMillis = holdMillis;
+        this.abandonPercent = abandonPercent;
+
+        int cumulative = 0;
+        for (Operation operation : Operation.values()) {
+            cumulative += weights.getOrDefault(operation, 0);
+            mix[operation.ordinal()] = cumulative;
+            latencies.put(operation, new LatencyHistogram());
+        }
+        if (cumulative <= 0) {
+            throw new IllegalArgumentException("The operation mix needs at least one positive weight");
+        }
+
+        String today = LocalDate.now().toString();
+        for (Movie movie : MovieCatalogue.current().getMovies()) {
+            if (showings.size() == showingCount) {
+                break;
+            }
+            showings.add(new Showing(movie.getTitle(), movie.getShowtimes().get(0), today));
+        }
+        if (showings.isEmpty()) {
+            throw new IllegalArgumentException("No movies to book; copy movies.csv into the working directory");
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        int customers = 1000;
+        long seconds = 30;
+        long thinkMillis = 200;
+        boolean hotCentre = true;
+        String mix = "browse=50,book=35,cancel=10,login=5";
+        int showingCount = 1;
+        int maxSeats = 4;
+        long holdMillis = 5000;
+        int abandonPercent = 5;
+        boolean force = false;
+        try {
+            for (int i = 0; i < args.length; i++) {
+                String arg = args[i];
+                if (arg.equals("--force")) {
+                    force = true;
+                    continue;
+                }
+                if (i + 1 >= args.length) {
+                    throw new IllegalArgumentException("Missing value for " + arg);
+                }
+                String value = args[++i];
+                switch (arg) {
+                    case "--customers": customers = Integer.parseInt(value); break;
+                    case "--seconds": seconds = Long.parseLong(value); break;
+                    case "--think-ms": thinkMillis = Long.parseLong(value); break;
+                    case "--pattern": hotCentre = parsePattern(value); break;
+                    case "--mix": mix = value; break;
+                    case "--showings": showingCount = Integer.parseInt(value); break;
+                    case "--max-seats": maxSeats = Integer.parseInt(value); break;
+                    case "--hold-ms": holdMillis = Long.parseLong(value); break;
+                    case "--abandon": abandonPercent = Integer.parseInt(value); break;
+                    default: throw new IllegalArgumentException("Unknown option " + arg);
+                }
+            }
+        } catch (IllegalArgumentException e) {
+            System.out.println(e.getMessage());
+            System.out.println("Usage: java LoadGenerator [--customers N] [--seconds N] [--think-ms N] [--pattern hot|uniform]");
+            System.out.println("                          [--mix browse=50,book=35,cancel=10,login=5] [--showings N]");
+            System.out.println("                          [--max-seats N] [--hold-ms N] [--abandon PERCENT] [--force]");
+            return;
+        }
+
+        if (new File(My_Bookings.BOOKINGS_FILE).length() > 0 && !force) {
+            System.out.println(My_Bookings.BOOKINGS_FILE + " already has bookings. The load test adds thousands more;");
+            System.out.println("run it from a scratch directory, or pass --force to use this one.");
+            return;
+        }
+
+        LoadGenerator generator;
+        try {
+            generator = new LoadGenerator(customers, TimeUnit.SECONDS.toMillis(seconds), thinkMillis, hotCentre,
+                    parseMix(mix), Math.max(1, showingCount), Math.max(1, maxSeats), holdMillis, abandonPercent);
+        } catch (IllegalArgumentException e) {
+            System.out.println(e.getMessage());
+            return;
+        }
+        generator.run();
+        System.exit(0); // Stop the stores' background threads
+    }
+
+    void run() throws InterruptedException {
+        SeatReservations reservations = SeatReservations.getInstance();
+        long expiredBefore = reservations.getExpiredHoldCount();
+        System.out.println("Simulating " + customers + " customers for " + durationMillis / 1000 + "s on "
+                + showings.size() + " showing(s), " + (hotCentre ? "hot centre" : "uniform") + " seat choice...");
+
+        long start = System.currentTimeMillis();
+        long deadline = start + durationMillis;
+        ExecutorService pool = BookingServer.newThreadPerTaskExecutor();
+        for (int i = 0; i < customers; i++) {
+            pool.execute(new Customer(i, deadline));
+        }
+        pool.shutdown();
+        // Customers finish their current step after the deadline; a confirm can wait up to one think time
+        pool.awaitTermination(durationMillis + thinkMillis * 50 + 60_000, TimeUnit.MILLISECONDS);
+        double elapsedSeconds = (System.currentTimeMillis() - start) / 1000.0;
+
+        // Holds abandoned near the end have not expired yet
+        Thread.sleep(Math.min(holdMillis + 500, 10_000));
+        report(elapsedSeconds, reservations.getExpiredHoldCount() - expiredBefore);
+    }
+
+    private void report(double elapsedSeconds, long expiredHolds) {
+        long operations = 0;
+        for (LatencyHistogram histogram : latencies.values()) {
+            operations += histogram.getCount();
+        }
+        System.out.println();
+        System.out.println(String.format("Throughput: %.1f operations/s (%d in %.1fs)", operations / elapsedSeconds, operations, elapsedSeconds));
+        System.out.println();
+        System.out.println(String.format("%-8s %10s %12s %12s %12s %12s", "op", "count", "ops/s", "p50 ms", "p99 ms", "p99.9 ms"));
+        for (Operation operation : Operation.values()) {
+            LatencyHistogram histogram = latencies.get(operation);
+            System.out.println(String.format("%-8s %10d %12.1f %12.3f %12.3f %12.3f", operation.name().toLowerCase(),
+                    histogram.getCount(), histogram.getCount() / elapsedSeconds, millis(histogram.percentile(50)),
+                    millis(histogram.percentile(99)), millis(histogram.percentile(99.9))));
+        }
+
+        System.out.println();
+        System.out.println("Outcomes:");
+        outcomes.entrySet().stream()
+                .sorted(Map.Entry.comparingByKey())
+                .forEach(entry -> System.out.println(String.format("  %-28s %10d", entry.getKey(), entry.getValue().sum())));
+        System.out.println(String.format("  %-28s %10d", "Holds expired", expiredHolds));
+
+        LoginThrottle.Snapshot throttle = LoginThrottle.getInstance().getSnapshot();
+        System.out.println();
+        System.out.println("Login throttle:");
+        System.out.println(String.format("  %-28s %10d", "Login attempts", throttle.getLoginAttempts()));
+        System.out.println(String.format("  %-28s %10d", "Failed logins", throttle.getFailedLogins()));
+        System.out.println(String.format("  %-28s %10d", "Rejected, per email", throttle.getRejectedByEmail()));
+        System.out.println(String.format("  %-28s %10d", "Rejected, per address", throttle.getRejectedByAddress()));
+        System.out.println(String.format("  %-28s %10d", "Rejected, locked out", throttle.getRejectedLockedOut()));
+        System.out.println(String.format("  %-28s %10d", "Sign-ups rejected", throttle.getRejectedSignUps()));
+        System.out.println(checkAddressLimit()
+                ? "Address limit check: passed, a burst from one terminal is turned away and others are not"
+                : "Address limit check: FAILED, the per-address limit did not fire as expected");
+
+        System.out.println();
+        long violations = 0;
+        for (Showing showing : showings) {
+            violations += checkShowing(showing);
+        }
+        System.out.println(violations == 0
+                ? "Double-booking check: passed, no seat sold twice"
+                : "Double-booking check: FAILED, " + violations + " violation(s)");
+    }
+
+    // Simulated customers log in without an address, so check the per-address limit on its own
+    // throttle: logins for different emails from one local terminal run out of tokens, while a
+    // second terminal on the same machine still gets through
+    private static boolean checkAddressLimit() {
+        LoginThrottle throttle = new LoginThrottle(LoginThrottle.MAX_PER_MINUTE, LoginThrottle.ADDRESS_PER_MINUTE,
+                LoginThrottle.SIGNUP_PER_MINUTE);
+        String terminal = "127.0.0.1:50001";
+        boolean rejected = false;
+        for (int i = 0; i < LoginThrottle.ADDRESS_PER_MINUTE + 3 && !rejected; i++) {
+            rejected = throttle.checkLogin("check-" + i + "@gmail.com", terminal) > 0;
+        }
+        return rejected && throttle.getSnapshot().getRejectedByAddress() == 1
+                && throttle.checkLogin("check-other@gmail.com", "127.0.0.1:50002") == 0;
+    }
+
+    // Count seats held by more than one confirmed booking, and seats the grid and the store disagree on
+    private long checkShowing(Showing showing) {
+        SeatGrid grid = seatInventory.gridFor(showing);
+        Map<String, Integer> owners = new HashMap<>();
+        long violations = 0;
+        for (My_Bookings.Booking booking : BookingStore.getInstance().findByMovie(showing.getMovieName())) {
+            if (!Showing.of(booking).equals(showing) || !"Confirmed".equalsIgnoreCase(booking.getStatus())) {
+                continue;
+            }
+            for (String seat : booking.getSeats().split(";")) {
+                if (seat.isEmpty()) {
+                    continue;
+                }
+                Integer previous = owners.putIfAbsent(seat, booking.getBookingId());
+                if (previous != null) {
+                    violations++;
+                    System.out.println("  Seat " + seat + " of " + showing.getMovieName() + " is in bookings "
+                            + previous + " and " + booking.getBookingId());
+                }
+                int index = grid.indexOf(seat);
+                if (index >= 0 && !grid.isBooked(index)) {
+                    violations++;
+                    System.out.println("  Seat " + seat + " of " + showing.getMovieName() + " is sold but free in the seat map");
+                }
+            }
+        }
+        return violations;
+    }
+
+    private Operation nextOperation() {
+        int roll = ThreadLocalRandom.current().nextInt(mix[mix.length - 1]);
+        for (Operation operation : Operation.values()) {
+            if (roll < mix[operation.ordinal()]) {
+                return operation;
+            }
+        }
+        return Operation.BROWSE;
+    }
+
+    private Showing pickShowing() {
+        return showings.get(ThreadLocalRandom.current().nextInt(showings.size()));
+    }
+
+    // Choose a run of free seats in one row, as a customer would on the seat map.
+    // The hot pattern starts near the middle of the hall, the uniform one anywhere; from there
+    // the first row with enough free seats together wins. Returns null when none is left.
+    private int[] pickSeats(SeatGrid grid, int count) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int rows = grid.getRows();
+        int cols = grid.getCols();
+        count = Math.min(count, cols);
+        int startRow;
+        int startCol;
+        if (hotCentre) {
+            startRow = clamp((int) Math.round(rows / 2.0 + random.nextGaussian() * rows / 6.0), rows);
+            startCol = clamp((int) Math.round((cols - count) / 2.0 + random.nextGaussian() * cols / 8.0), cols - count + 1);
+        } else {
+            startRow = random.nextInt(rows);
+            startCol = random.nextInt(cols - count + 1);
+        }
+
+        for (int r = 0; r < 2 * rows; r++) {
+            // Hot: spread outwards from the start row; uniform: wrap around
+            int row = hotCentre ? startRow + ((r & 1) == 0 ? r / 2 : -(r + 1) / 2) : r < rows ? (startRow + r) % rows : -1;
+            if (row < 0 || row >= rows) {
+                continue;
+            }
+            for (int c = 0; c <= cols - count; c++) {
+                int col = (startCol + c) % (cols - count + 1);
+                int[] seats = new int[count];
+                boolean free = true;
+                for (int i = 0; i < count && free; i++) {
+                    seats[i] = grid.index(row, col + i);
+                    free = grid.isAvailable(seats[i]);
+                }
+                if (free) {
+                    return seats;
+                }
+            }
+        }
+        return null;
+    }
+
+    private void count(String outcome) {
+        outcomes.computeIfAbsent(outcome, k -> new LongAdder()).increment();
+    }
+
+    private static int clamp(int value, int size) {
+        return Math.max(0, Math.min(size - 1, value));
+    }
+
+    private static double millis(long nanos) {
+        return nanos / 1e6;
+    }
+
+    private static boolean parsePattern(String value) {
+        if (value.equalsIgnoreCase("hot")) {
+            return true;
+        }
+        if (value.equalsIgnoreCase("uniform")) {
+            return false;
+        }
+        throw new IllegalArgumentException("Unknown seat pattern " + value + " (use hot or uniform)");
+    }
+
+    // "browse=50,book=35,cancel=10,login=5" -> weights per operation
+    private static Map<Operation, Integer> parseMix(String mix) {
+        Map<Operation, Integer> weights = new EnumMap<>(Operation.class);
+        for (String part : mix.split(",")) {
+            String[] pair = part.split("=");
+            if (pair.length != 2) {
+                throw new IllegalArgumentException("Bad mix entry " + part);
+            }
+            weights.put(Operation.valueOf(pair[0].trim().toUpperCase()), Integer.parseInt(pair[1].trim()));
+        }
+        return weights;
+    }
+}
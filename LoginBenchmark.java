@@ -0,0 +1,53 @@
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.ArrayList;
+import java.util.List;
+
+// Measures login cost at different PBKDF2 work factors.
+// Reports logins/second on one core and across all cores, to help pick -Dbooking.pbkdf2.iterations.
+// Usage: java LoginBenchmark [iterations,iterations,...] [seconds per run]
+public class LoginBenchmark {
+    public static void main(String[] args) throws Exception {
+        String[] workFactors = (args.length > 0 ? args[0] : "10000,100000,310000,600000").split(",");
+        double seconds = args.length > 1 ? Double.parseDouble(args[1]) : 2.0;
+        int cores = Runtime.getRuntime().availableProcessors();
+
+        System.out.println("PBKDF2WithHmacSHA256 login throughput (" + cores + " cores)");
+        System.out.println(String.format("%12s %16s %16s %12s", "iterations", "logins/s/core", "logins/s total", "ms/login"));
+
+        for (String workFactor : workFactors) {
+            int iterations = Integer.parseInt(workFactor.trim());
+            String stored = PasswordHasher.hashWith("benchmark-password", iterations);
+            run(stored, 1, Math.min(1.0, seconds / 2)); // Warm up the JIT
+
+            double perCore = run(stored, 1, seconds);
+            double total = run(stored, cores, seconds);
+            System.out.println(String.format("%12d %16.1f %16.1f %12.2f", iterations, perCore, total, 1000.0 / perCore));
+        }
+    }
+
+    // Verify the password in a loop on the given number of threads; returns logins per second
+    private static double run(String stored, int threads, double seconds) throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        long deadline = System.nanoTime() + (long) (seconds * 1e9);
+        long start = System.nanoTime();
+        List<Future<Integer>> results = new ArrayList<>();
+        for (int i = 0; i < threads; i++) {
+            results.add(pool.submit(() -> {
+                int logins = 0;
+                while (System.nanoTime() < deadline) {
+                    PasswordHasher.verifyHash("benchmark-password", stored);
+                    logins++;
+                }
+                return logins;
+            }));
+        }
+        long logins = 0;
+        for (Future<Integer> result : results) {
+            logins += result.get();
+        }
+        pool.shutdown();
+        return logins / ((System.nanoTime() - start) / 1e9);
+    }
+}
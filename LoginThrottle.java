@@ -0,0 +1,227 @@
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+// Rate limiting for login and sign-up attempts.
+// Every attempt is checked here before any user lookup or password hashing, so a script
+// hammering the login screen costs a few atomic operations per try, not a PBKDF2 run.
+//
+// Limits are token buckets, one per email and one per client address: each attempt takes a
+// token and tokens refill at a steady rate up to a small burst. After repeated failed logins
+// an email is also locked out for a delay that doubles with every further failure.
+//
+// Memory is fixed: buckets live in striped AtomicLongArrays indexed by a hash of the key, each
+// slot packing its whole state into one long that is updated with compare-and-set, so there is
+// no lock and no per-key allocation. Keys that share a slot share a limit, which only errs on
+// the side of throttling.
+//
+// The address is whatever identifies the terminal: the peer's IP for remote terminals, and the
+// connection itself for terminals on this machine, which all share the loopback IP (see
+// BookingServer.clientAddress). Only trusted in-process callers pass no address at all.
+//
+// Limits per minute: -Dbooking.login.email.per.minute (default 10),
+// -Dbooking.login.address.per.minute (default 60), -Dbooking.signup.address.per.minute (default 10).
+// A bucket holds at most MAX_PER_MINUTE / 2 tokens, so larger values are rejected.
+public class LoginThrottle {
+    static final int EMAIL_PER_MINUTE = Integer.getInteger("booking.login.email.per.minute", 10);
+    static final int ADDRESS_PER_MINUTE = Integer.getInteger("booking.login.address.per.minute", 60);
+    static final int SIGNUP_PER_MINUTE = Integer.getInteger("booking.signup.address.per.minute", 10);
+    static final int FAILURES_BEFORE_BACKOFF = 3;
+    static final long BACKOFF_BASE_MILLIS = 1000;
+    static final long BACKOFF_MAX_MILLIS = 15 * 60 * 1000;
+    static final long FAILURES_RESET_MILLIS = 15 * 60 * 1000; // Quiet time after which old failures are forgotten
+
+    private static final int SLOTS = 1 << 16; // Per table
+    private static final int TIME_BITS = 44;  // Milliseconds since START, about 550 years
+    private static final long TIME_MASK = (1L << TIME_BITS) - 1;
+    private static final long MILLI_TOKEN = 1000; // Bucket levels are kept in thousandths of a token
+    private static final long MAX_MILLI_TOKENS = (1L << (64 - TIME_BITS)) - 1; // What fits above the time
+    static final int MAX_PER_MINUTE = (int) (MAX_MILLI_TOKENS / MILLI_TOKEN) * 2 + 1;
+    private static final long START = System.currentTimeMillis() - 1; // Keeps every timestamp non-zero
+
+    private static LoginThrottle instance;
+
+    private final TokenBuckets byEmail;
+    private final TokenBuckets byAddress;
+    private final TokenBuckets signUpsByAddress;
+    private final AtomicLongArray failures = new AtomicLongArray(SLOTS); // Failure count, time of last failure
+
+    private final LongAdder loginAttempts = new LongAdder();
+    private final LongAdder rejectedByEmail = new LongAdder();
+    private final LongAdder rejectedByAddress = new LongAdder();
+    private final LongAdder rejectedLockedOut = new LongAdder();
+    private final LongAdder failedLogins = new LongAdder();
+    private final LongAdder signUpAttempts = new LongAdder();
+    private final LongAdder rejectedSignUps = new LongAdder();
+
+    // Counter values at one point in time, for monitoring
+    public static final class Snapshot {
+        private final long loginAttempts;
+        private final long rejectedByEmail;
+        private final long rejectedByAddress;
+        private final long rejectedLockedOut;
+        private final long failedLogins;
+        private final long signUpAttempts;
+        private final long rejectedSignUps;
+
+        Snapshot(long loginAttempts, long rejectedByEmail, long rejectedByAddress, long rejectedLockedOut,
+              long failedLogins, long signUpAttempts, long rejectedSignUps) {
+            this.loginAttempts = loginAttempts;
+            this.rejectedByEmail = rejectedByEmail;
+            this.rejectedByAddress = rejectedByAddress;
+            this.rejectedLockedOut = rejectedLockedOut;
+            this.failedLogins = failedLogins;
+            this.signUpAttempts = signUpAttempts;
+            this.rejectedSignUps = rejectedSignUps;
+        }
+
+        public long getLoginAttempts() { return loginAttempts; }
+        public long getRejectedByEmail() { return rejectedByEmail; }
+        public long getRejectedByAddress() { return rejectedByAddress; }
+        public long getRejectedLockedOut() { return rejectedLockedOut; }
+        public long getFailedLogins() { return failedLogins; }
+        public long getSignUpAttempts() { return signUpAttempts; }
+        public long getRejectedSignUps() { return rejectedSignUps; }
+    }
+
+    // Token buckets for one kind of key, packed as (milli-tokens << TIME_BITS) | last refill time
+    private static final class TokenBuckets {
+        private final AtomicLongArray slots = new AtomicLongArray(SLOTS);
+        private final long capacity;       // Milli-tokens
+        private final double refillPerMilli; // Milli-tokens per millisecond
+
+        TokenBuckets(int perMinute) {
+            if (perMinute < 1 || perMinute > MAX_PER_MINUTE) {
+                throw new IllegalArgumentException("Rate limit must be between 1 and " + MAX_PER_MINUTE
+                        + " per minute: " + perMinute);
+            }
+            // Allow a short burst of half a minute's worth, at least a few tries
+            this.capacity = Math.max(3, perMinute / 2) * MILLI_TOKEN;
+            this.refillPerMilli = perMinute * MILLI_TOKEN / 60_000.0;
+        }
+
+        // Take one token; returns 0 on success, otherwise how long until one is available
+        long tryAcquire(int slot, long now) {
+            while (true) {
+                long state = slots.get(slot);
+                long tokens = capacity;
+                if (state != 0) {
+                    long elapsed = Math.max(0, now - (state & TIME_MASK));
+                    tokens = Math.min(capacity, (state >>> TIME_BITS) + (long) (elapsed * refillPerMilli));
+                }
+                if (tokens < MILLI_TOKEN) {
+                    return Math.max(1, (long) Math.ceil((MILLI_TOKEN - tokens) / refillPerMilli));
+                }
+                long next = ((tokens - MILLI_TOKEN) << TIME_BITS) | now;
+                if (slots.compareAndSet(slot, state, next)) {
+                    return 0;
+                }
+            }
+        }
+    }
+
+    public static synchronized LoginThrottle getInstance() {
+        if (instance == null) {
+            instance = new LoginThrottle(EMAIL_PER_MINUTE, ADDRESS_PER_MINUTE, SIGNUP_PER_MINUTE);
+        }
+        return instance;
+    }
+
+    LoginThrottle(int emailPerMinute, int addressPerMinute, int signUpsPerMinute) {
+        this.byEmail = new TokenBuckets(emailPerMinute);
+        this.byAddress = new TokenBuckets(addressPerMinute);
+        this.signUpsByAddress = new TokenBuckets(signUpsPerMinute);
+    }
+
+    // Cheap pre-check for a login attempt. Returns 0 if it may go ahead, otherwise the
+    // number of milliseconds to wait. A null address (trusted, in-process callers) skips the
+    // address limit.
+    public long checkLogin(String email, String address) {
+        loginAttempts.increment();
+        long now = now();
+        String emailKey = BookingStore.emailKey(email);
+        int emailSlot = slot(emailKey);
+
+        long lockedFor = lockedOutFor(emailSlot, now);
+        if (lockedFor > 0) {
+            rejectedLockedOut.increment();
+            return lockedFor;
+        }
+        if (address != null) {
+            long wait = byAddress.tryAcquire(slot(address), now);
+            if (wait > 0) {
+                rejectedByAddress.increment();
+                return wait;
+            }
+        }
+        long wait = byEmail.tryAcquire(emailSlot, now);
+        if (wait > 0) {
+            rejectedByEmail.increment();
+        }
+        return wait;
+    }
+
+    // Cheap pre-check for a sign-up, which costs a password hash
+    public long checkSignUp(String address) {
+        signUpAttempts.increment();
+        if (address == null) {
+            return 0;
+        }
+        long wait = signUpsByAddress.tryAcquire(slot(address), now());
+        if (wait > 0) {
+            rejectedSignUps.increment();
+        }
+        return wait;
+    }
+
+    // A wrong password (or unknown email): count it towards the lockout
+    public void onLoginFailed(String email) {
+        failedLogins.increment();
+        int slot = slot(BookingStore.emailKey(email));
+        long now = now();
+        while (true) {
+            long state = failures.get(slot);
+            long count = failureCount(state, now) + 1;
+            if (failures.compareAndSet(slot, state, (count << TIME_BITS) | now)) {
+                return;
+            }
+        }
+    }
+
+    public void onLoginSucceeded(String email) {
+        failures.set(slot(BookingStore.emailKey(email)), 0);
+    }
+
+    public Snapshot getSnapshot() {
+        return new Snapshot(loginAttempts.sum(), rejectedByEmail.sum(), rejectedByAddress.sum(), rejectedLockedOut.sum(),
+                failedLogins.sum(), signUpAttempts.sum(), rejectedSignUps.sum());
+    }
+
+    // Remaining lockout for an email: nothing for the first few failures, then 1s, 2s, 4s, ... up to the cap
+    private long lockedOutFor(int slot, long now) {
+        long state = failures.get(slot);
+        long count = failureCount(state, now);
+        if (count < FAILURES_BEFORE_BACKOFF) {
+            return 0;
+        }
+        int doublings = (int) Math.min(30, count - FAILURES_BEFORE_BACKOFF);
+        long delay = Math.min(BACKOFF_MAX_MILLIS, BACKOFF_BASE_MILLIS << doublings);
+        long until = (state & TIME_MASK) + delay;
+        return until > now ? until - now : 0;
+    }
+
+    private static long failureCount(long state, long now) {
+        if (state == 0 || now - (state & TIME_MASK) > FAILURES_RESET_MILLIS) {
+            return 0;
+        }
+        return state >>> TIME_BITS;
+    }
+
+    private static int slot(String key) {
+        int h = key.hashCode() * 0x9E3779B9; // Spread similar keys across the table
+        return (h ^ (h >>> 16)) & (SLOTS - 1);
+    }
+
+    private static long now() {
+        return System.currentTimeMillis() - START;
+    }
+}
@@ -0,0 +1,487 @@
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+// Binary booking storage in a memory-mapped file of fixed-width records.
+// The record for booking ID n sits at HEADER_SIZE + n * RECORD_SIZE, so a lookup is an
+// offset calculation and a status change is a single byte written in place. Strings that
+// repeat across bookings (movie names, showtimes, dates, statuses) are interned into a side
+// dictionary file and stored as int references; the strings unique to a booking (customer
+// name and email, booking time, seats) are appended to a text file the record points into.
+// Both side files are fsynced before the record that refers to them, and a record whose
+// references cannot be resolved after a crash is skipped and reported, not loaded.
+//
+// Record layout (64 bytes):
+//   0  byte   flags (1 = in use, written last)
+//   1  byte   status code (0 none, 1 Confirmed, 2 Cancelled, 3 other -> status ref)
+//   4  int    booking ID
+//   8  int    tickets
+//   12 int    movie ref
+//   16 double total price
+//   24 long   text offset (customer name, email, booking time, seats)
+//   32 int    text length
+//   36 int    booking date ref
+//   40 int    showtime ref
+//   44 int    status ref
+//
+// Use -Dbooking.storage=mapped to run the app on it, and
+//   java MappedBookingStore import [bookings.csv]   /   java MappedBookingStore export [bookings.csv]
+// to convert to and from the CSV format.
+public class MappedBookingStore implements BookingStorage {
+    static final String DATA_FILE = "movie_bookings.dat";
+    static final String DICTIONARY_FILE = "movie_bookings.dict";
+    static final String TEXT_FILE = "movie_bookings.txt";
+
+    private static final int MAGIC = 0x424B4732; // "BKG2"
+    private static final int OLD_MAGIC = 0x424B4731; // "BKG1", every string in the dictionary
+    private static final int HEADER_SIZE = 64;
+    private static final int RECORD_SIZE = 64;
+    private static final int GROWTH_RECORDS = 65536; // Remap in 4 MB steps
+    // A mapping is limited to 2 GB, which bounds the highest booking ID
+    private static final int MAX_RECORDS = (Integer.MAX_VALUE - HEADER_SIZE) / RECORD_SIZE;
+
+    private static final int FLAGS = 0;
+    private static final int STATUS_CODE = 1;
+    private static final int BOOKING_ID = 4;
+    private static final int TICKETS = 8;
+    private static final int MOVIE = 12;
+    private static final int TOTAL_PRICE = 16;
+    private static final int TEXT_OFFSET = 24;
+    private static final int TEXT_LENGTH = 32;
+    private static final int BOOKING_DATE = 36;
+    private static final int SHOWTIME = 40;
+    private static final int STATUS = 44;
+
+    private static final byte IN_USE = 1;
+    private static final byte STATUS_NONE = 0;
+    private static final byte STATUS_CONFIRMED = 1;
+    private static final byte STATUS_CANCELLED = 2;
+    private static final byte STATUS_OTHER = 3;
+
+    private final boolean readOnly;
+    private final FileChannel channel;
+    private MappedByteBuffer records;
+    private int capacity; // Record slots currently mapped
+    private int highestId; // Highest booking ID stored, kept in the header
+
+    private final List<String> dictionary = new ArrayList<>();
+    private final Map<String, Integer> dictionaryIndex = new HashMap<>();
+    private final FileOutputStream dictionaryFileOut;
+    private final DataOutputStream dictionaryOut;
+    private boolean dictionaryDirty = false; // Entries written since the last fsync
+
+    private final FileChannel text;
+    private long textSize;
+
+    public MappedBookingStore(String dataFile, String dictionaryFile, String textFile) throws IOException {
+        this.readOnly = false;
+        loadDictionary(dictionaryFile);
+        dictionaryFileOut = new FileOutputStream(dictionaryFile, true);
+        dictionaryOut = new DataOutputStream(dictionaryFileOut);
+        text = FileChannel.open(Paths.get(textFile), StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        textSize = text.size(); // Text past the last stored record is never referenced; append after it
+
+        channel = FileChannel.open(Paths.get(dataFile), StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        boolean isNew = channel.size() < HEADER_SIZE;
+        map((int) Math.min(MAX_RECORDS, Math.max(GROWTH_RECORDS, (channel.size() - HEADER_SIZE) / RECORD_SIZE)));
+        if (isNew) {
+            records.putInt(0, MAGIC);
+            records.putInt(4, RECORD_SIZE);
+            records.putInt(8, 0);
+        } else {
+            checkHeader(dataFile);
+        }
+        highestId = records.getInt(8);
+    }
+
+    // Read-only view of a store another process may be writing to, for reports.
+    // Nothing is created, grown or repaired. The header is read before the side files, so
+    // every record it covers has its dictionary entries and text on disk already; bookings
+    // added after opening are not seen.
+    private MappedBookingStore(String dataFile, String dictionaryFile, String textFile, boolean readOnly) throws IOException {
+        this.readOnly = readOnly;
+        channel = FileChannel.open(Paths.get(dataFile), StandardOpenOption.READ);
+        if (channel.size() < HEADER_SIZE) {
+            channel.close();
+            throw new IOException(dataFile + " is not a booking data file");
+        }
+        capacity = (int) Math.min(MAX_RECORDS, (channel.size() - HEADER_SIZE) / RECORD_SIZE);
+        records = channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_SIZE + (long) capacity * RECORD_SIZE);
+        checkHeader(dataFile);
+        highestId = Math.min(records.getInt(8), capacity - 1);
+
+        loadDictionary(dictionaryFile);
+        dictionaryFileOut = null;
+        dictionaryOut = null;
+        text = FileChannel.open(Paths.get(textFile), StandardOpenOption.READ);
+        textSize = text.size();
+    }
+
+    public static MappedBookingStore openReadOnly(String dataFile, String dictionaryFile, String textFile) throws IOException {
+        return new MappedBookingStore(dataFile, dictionaryFile, textFile, true);
+    }
+
+    // Lookup by booking ID: one offset calculation
+    public synchronized My_Bookings.Booking get(int bookingId) {
+        if (bookingId < 0 || bookingId > highestId) {
+            return null;
+        }
+        int offset = offset(bookingId);
+        if (records.get(offset + FLAGS) != IN_USE) {
+            return null;
+        }
+        return read(offset); // Null if the record refers to data that never reached the disk
+    }
+
+    @Override
+    public synchronized List<My_Bookings.Booking> loadAll() {
+        List<My_Bookings.Booking> bookings = new ArrayList<>();
+        forEach(bookings::add);
+        return bookings;
+    }
+
+    // Visit every booking in ID order without holding them all in memory.
+    // Records left dangling by a crash are reported and skipped.
+    public synchronized void forEach(Consumer<My_Bookings.Booking> action) {
+        for (int id = 0; id <= highestId; id++) {
+            int offset = offset(id);
+            if (records.get(offset + FLAGS) != IN_USE) {
+                continue;
+            }
+            My_Bookings.Booking booking = read(offset);
+            if (booking == null) {
+                System.out.println("Skipping booking ID " + id + ": it refers to data missing from the dictionary or text file");
+                continue;
+            }
+            action.accept(booking);
+        }
+    }
+
+    @Override
+    public synchronized void append(My_Bookings.Booking booking) throws IOException {
+        checkWritable();
+        int bookingId = booking.getBookingId();
+        if (bookingId < 0 || bookingId >= MAX_RECORDS) {
+            throw new IOException("Booking ID " + bookingId + " cannot be stored");
+        }
+        if (bookingId >= capacity) {
+            map((int) Math.min(MAX_RECORDS, (long) bookingId + GROWTH_RECORDS));
+        }
+        int offset = offset(bookingId);
+        if (records.get(offset + FLAGS) == IN_USE) {
+            throw new IOException("Booking ID " + bookingId + " is already stored");
+        }
+
+        long textOffset = textSize;
+        int textLength = appendText(booking);
+
+        records.putInt(offset + BOOKING_ID, bookingId);
+        records.putInt(offset + TICKETS, booking.getNumberOfTickets());
+        records.putInt(offset + MOVIE, intern(booking.getMovieName()));
+        records.putDouble(offset + TOTAL_PRICE, booking.getTotalPrice());
+        records.putLong(offset + TEXT_OFFSET, textOffset);
+        records.putInt(offset + TEXT_LENGTH, textLength);
+        records.putInt(offset + BOOKING_DATE, intern(booking.getBookingDay()));
+        records.putInt(offset + SHOWTIME, intern(booking.getShowtime()));
+        writeStatus(offset, booking.getStatus());
+        // Everything the record refers to must be durable before the record can be
+        text.force(false);
+        forceDictionary();
+        records.force(offset, RECORD_SIZE);
+
+        // Flag last, so a torn write never shows up as a booking
+        records.put(offset + FLAGS, IN_USE);
+        if (bookingId > highestId) {
+            highestId = bookingId;
+            records.putInt(8, highestId);
+        }
+        records.force(0, HEADER_SIZE);
+        records.force(offset, RECORD_SIZE);
+    }
+
+    // Status flip: a single byte written in place
+    @Override
+    public synchronized void recordStatus(int bookingId, String status) throws IOException {
+        checkWritable();
+        int offset = usedOffset(bookingId);
+        writeStatus(offset, status);
+        forceDictionary();
+        records.force(offset, RECORD_SIZE);
+    }
+
+    @Override
+    public synchronized void recordTickets(int bookingId, int tickets, double totalPrice) throws IOException {
+        checkWritable();
+        int offset = usedOffset(bookingId);
+        records.putInt(offset + TICKETS, tickets);
+        records.putDouble(offset + TOTAL_PRICE, totalPrice);
+        records.force(offset, RECORD_SIZE);
+    }
+
+    // Records are updated in place, so there is nothing to compact
+    @Override
+    public boolean needsCompaction() {
+        return false;
+    }
+
+    @Override
+    public void compact(List<My_Bookings.Booking> bookings) {
+    }
+
+    public synchronized void close() throws IOException {
+        if (!readOnly) {
+            records.force();
+            forceDictionary();
+            dictionaryOut.close();
+        }
+        text.close();
+        channel.close();
+    }
+
+    // Copy every booking from a CSV file into a new binary store
+    public static int importCsv(String csvFile, String dataFile, String dictionaryFile, String textFile) throws IOException {
+        if (new File(dataFile).exists() || new File(dictionaryFile).exists() || new File(textFile).exists()) {
+            throw new IOException(dataFile + " already exists; remove it before importing");
+        }
+        int imported = 0;
+        MappedBookingStore store = new MappedBookingStore(dataFile, dictionaryFile, textFile);
+        try (CsvReader reader = new CsvReader(new BufferedReader(new FileReader(csvFile, StandardCharsets.UTF_8)))) {
+            while (reader.next()) {
+                My_Bookings.Booking booking;
+                try {
+                    booking = My_Bookings.parseBooking(reader);
+                } catch (RuntimeException e) {
+                    System.out.println("Skipping unreadable row: " + e.getMessage());
+                    continue;
+                }
+                if (booking == null) {
+                    continue;
+                }
+                if (store.get(booking.getBookingId()) != null) {
+                    // IDs are slot numbers; duplicates from before the ID allocator cannot both be stored
+                    System.out.println("Skipping duplicate booking ID " + booking.getBookingId());
+                    continue;
+                }
+                store.append(booking);
+                imported++;
+            }
+        } finally {
+            store.close();
+        }
+        return imported;
+    }
+
+    // Write every booking in a binary store out as CSV
+    public static int exportCsv(String dataFile, String dictionaryFile, String textFile, String csvFile) throws IOException {
+        MappedBookingStore store = new MappedBookingStore(dataFile, dictionaryFile, textFile);
+        try (Writer writer = new BufferedWriter(new FileWriter(csvFile, StandardCharsets.UTF_8))) {
+            List<My_Bookings.Booking> bookings = store.loadAll();
+            for (My_Bookings.Booking booking : bookings) {
+                writer.write(booking.toCSV());
+                writer.write("\n");
+            }
+            return bookings.size();
+        } finally {
+            store.close();
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length == 0 || !(args[0].equals("import") || args[0].equals("export"))) {
+            System.out.println("Usage: java MappedBookingStore import|export [bookings.csv]");
+            return;
+        }
+        String csvFile = args.length > 1 ? args[1] : My_Bookings.BOOKINGS_FILE;
+        if (args[0].equals("import")) {
+            int count = importCsv(csvFile, DATA_FILE, DICTIONARY_FILE, TEXT_FILE);
+            System.out.println("Imported " + count + " bookings from " + csvFile + " into " + DATA_FILE);
+        } else {
+            int count = exportCsv(DATA_FILE, DICTIONARY_FILE, TEXT_FILE, csvFile);
+            System.out.println("Exported " + count + " bookings from " + DATA_FILE + " to " + csvFile);
+        }
+    }
+
+    // The booking in a record, or null if one of its references cannot be resolved
+    private My_Bookings.Booking read(int offset) {
+        String status;
+        switch (records.get(offset + STATUS_CODE)) {
+            case STATUS_CONFIRMED: status = "Confirmed"; break;
+            case STATUS_CANCELLED: status = "Cancelled"; break;
+            case STATUS_OTHER: status = lookup(records.getInt(offset + STATUS)); break;
+            default: status = "";
+        }
+        String movie = lookup(records.getInt(offset + MOVIE));
+        String bookingDate = lookup(records.getInt(offset + BOOKING_DATE));
+        String showtime = lookup(records.getInt(offset + SHOWTIME));
+        String[] fields = readText(records.getLong(offset + TEXT_OFFSET), records.getInt(offset + TEXT_LENGTH));
+        if (status == null || movie == null || bookingDate == null || showtime == null || fields == null) {
+            return null;
+        }
+        return new My_Bookings.Booking(records.getInt(offset + BOOKING_ID), movie, fields[0], fields[1],
+                records.getInt(offset + TICKETS), records.getDouble(offset + TOTAL_PRICE),
+                bookingDate, fields[2], showtime, fields[3], status.isEmpty() ? null : status);
+    }
+
+    private String lookup(int ref) {
+        return ref >= 0 && ref < dictionary.size() ? dictionary.get(ref) : null;
+    }
+
+    // Customer name, email, booking time and seats, written as one entry per booking
+    private int appendText(My_Bookings.Booking booking) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(128);
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeUTF(nonNull(booking.getCustomerName()));
+        out.writeUTF(nonNull(booking.getCustomerEmail()));
+        out.writeUTF(nonNull(booking.getBookingTime()));
+        out.writeUTF(nonNull(booking.getSeats()));
+        ByteBuffer buffer = ByteBuffer.wrap(bytes.toByteArray());
+        while (buffer.hasRemaining()) {
+            text.write(buffer, textSize + buffer.position());
+        }
+        textSize += buffer.limit();
+        return buffer.limit();
+    }
+
+    private String[] readText(long textOffset, int length) {
+        if (textOffset < 0 || length < 0 || textOffset + length > textSize) {
+            return null;
+        }
+        try {
+            ByteBuffer buffer = ByteBuffer.allocate(length);
+            while (buffer.hasRemaining()) {
+                if (text.read(buffer, textOffset + buffer.position()) < 0) {
+                    return null;
+                }
+            }
+            DataInputStream in = new DataInputStream(new ByteArrayInputStream(buffer.array()));
+            return new String[] {in.readUTF(), in.readUTF(), in.readUTF(), in.readUTF()};
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    private static String nonNull(String value) {
+        return value != null ? value : "";
+    }
+
+    private void writeStatus(int offset, String status) throws IOException {
+        byte code;
+        if (status == null || status.isEmpty()) {
+            code = STATUS_NONE;
+        } else if (status.equals("Confirmed")) {
+            code = STATUS_CONFIRMED;
+        } else if (status.equals("Cancelled")) {
+            code = STATUS_CANCELLED;
+        } else {
+            code = STATUS_OTHER;
+            records.putInt(offset + STATUS, intern(status));
+        }
+        records.put(offset + STATUS_CODE, code);
+    }
+
+    private void checkHeader(String dataFile) throws IOException {
+        if (records.getInt(0) == OLD_MAGIC) {
+            throw new IOException(dataFile + " uses an older layout; import the bookings CSV again");
+        } else if (records.getInt(0) != MAGIC || records.getInt(4) != RECORD_SIZE) {
+            throw new IOException(dataFile + " is not a booking data file");
+        }
+    }
+
+    private void checkWritable() throws IOException {
+        if (readOnly) {
+            throw new IOException("The booking data file is open read-only");
+        }
+    }
+
+    private int usedOffset(int bookingId) throws IOException {
+        if (bookingId < 0 || bookingId > highestId || records.get(offset(bookingId) + FLAGS) != IN_USE) {
+            throw new IOException("Booking ID " + bookingId + " not found");
+        }
+        return offset(bookingId);
+    }
+
+    // Callers keep bookingId below MAX_RECORDS, so the offset fits in an int
+    private static int offset(int bookingId) {
+        return (int) (HEADER_SIZE + (long) bookingId * RECORD_SIZE);
+    }
+
+    private void map(int slots) throws IOException {
+        if (records != null) {
+            records.force();
+        }
+        capacity = slots;
+        records = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_SIZE + (long) slots * RECORD_SIZE);
+    }
+
+    private int intern(String value) throws IOException {
+        String key = value != null ? value : "";
+        Integer ref = dictionaryIndex.get(key);
+        if (ref != null) {
+            return ref;
+        }
+        dictionaryOut.writeUTF(key);
+        dictionaryDirty = true;
+        ref = dictionary.size();
+        dictionary.add(key);
+        dictionaryIndex.put(key, ref);
+        return ref;
+    }
+
+    private void forceDictionary() throws IOException {
+        if (dictionaryDirty) {
+            dictionaryOut.flush();
+            dictionaryFileOut.getChannel().force(false);
+            dictionaryDirty = false;
+        }
+    }
+
+    // Read the dictionary, cutting off an entry torn by a crash so new entries line up again.
+    // A read-only store leaves the file alone: the entry may be one still being written.
+    private void loadDictionary(String dictionaryFile) throws IOException {
+        File file = new File(dictionaryFile);
+        if (!file.exists()) {
+            return;
+        }
+        byte[] bytes = Files.readAllBytes(file.toPath());
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes));
+        int valid = 0;
+        while (valid < bytes.length) {
+            String value;
+            try {
+                value = in.readUTF();
+            } catch (IOException e) {
+                break;
+            }
+            valid = bytes.length - in.available();
+            dictionaryIndex.putIfAbsent(value, dictionary.size());
+            dictionary.add(value);
+        }
+        if (valid < bytes.length && !readOnly) {
+            System.out.println("Dropping a torn entry at the end of " + dictionaryFile);
+            try (FileChannel dictionaryChannel = FileChannel.open(file.toPath(), StandardOpenOption.WRITE)) {
+                dictionaryChannel.truncate(valid);
+            }
+        }
+    }
+}
@@ -0,0 +1,78 @@
+import java.io.PrintStream;
+import java.util.Scanner;
+
+// One user's run through the main menu.
+// All screens of a session share the same input and output, so the menu can be driven
+// from the local console or from a network client. Bookings, seats and users are shared
+// between sessions through the application-wide stores; who is logged in is per session,
+// held by the session's User_authen as a SessionManager token.
+public class MenuSession implements Runnable
+{
+    private final Scanner user_input;
+    private final PrintStream out;
+    private final String clientAddress;
+
+    public MenuSession(Scanner user_input, PrintStream out)
+    {
+        this(user_input, out, "console");
+    }
+
+    public MenuSession(Scanner user_input, PrintStream out, String clientAddress)
+    {
+        this.user_input = user_input;
+        this.out = out;
+        this.clientAddress = clientAddress;
+    }
+
+    @Override
+    public void run()
+    {
+        Display_Menu menu = new Display_Menu(out);
+        User_authen auth = new User_authen(user_input, out, clientAddress);
+        BookingTickets booking = new BookingTickets(user_input, out, auth);
+        Cancel_booking cancel = new Cancel_booking(user_input, out, auth);
+        My_Bookings myBookings = new My_Bookings(user_input, out, auth);
+        auth.sign_up();
+        try 
+        {
+            while (true)
+            {
+                int choice;
+                    menu.showMenu();
+                    out.println("-------------------------");
+                    out.print("Enter your choice: ");
+                    choice = user_input.nextInt();
+                    user_input.nextLine(); // Consume newline
+                    switch(choice)
+                    {
+                        case 1: 
+                            booking.browseAndBookTickets();
+                            
+                            break;
+                        case 2: 
+                            myBookings.viewMyBookings();
+                            break;
+                        case 3: 
+                            cancel.cancelBooking();
+                            break;
+                        case 4: 
+                            out.println("Exiting the application. Goodbye!");
+                            return;
+                        default:
+                            out.println("Invalid choice. Please try again.");    
+                }
+                
+                
+            }
+            
+        }
+        catch (Exception e)
+        {
+            out.println("An error occurred: " + e.getMessage());
+        }
+        finally
+        {
+            auth.logout();
+        }
+    }
+}
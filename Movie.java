@@ -0,0 +1,42 @@
+import java.util.Collections;
+import java.util.List;
+
+// One title in the movie catalogue, with its price, format, running time and showtimes.
+// Immutable, so catalogue snapshots can be shared between sessions without locking.
+public final class Movie {
+    private final String title;
+    private final String genre;
+    private final double price;
+    private final String format;
+    private final int durationMinutes; // 0 if not known
+    private final List<String> showtimes;
+
+    public Movie(String title, String genre, double price, String format, int durationMinutes, List<String> showtimes) {
+        this.title = title;
+        this.genre = genre;
+        this.price = price;
+        this.format = format;
+        this.durationMinutes = durationMinutes;
+        this.showtimes = Collections.unmodifiableList(showtimes);
+    }
+
+    public String getTitle() { return title; }
+    public String getGenre() { return genre; }
+    public double getPrice() { return price; }
+    public String getFormat() { return format; }
+    public int getDurationMinutes() { return durationMinutes; }
+    public List<String> getShowtimes() { return showtimes; }
+
+    // Running time as e.g. "2h 16m"
+    public String getDurationText() {
+        if (durationMinutes <= 0) {
+            return "N/A";
+        }
+        return (durationMinutes / 60) + "h " + (durationMinutes % 60) + "m";
+    }
+
+    @Override
+    public String toString() {
+        return title;
+    }
+}
@@ -0,0 +1,212 @@
+import java.io.BufferedReader;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+// Movie catalogue loaded from movies.csv.
+// A catalogue is an immutable snapshot: genres in file order, each genre's movies in file
+// order, and a case-insensitive title index. The current snapshot sits behind a volatile
+// reference, so readers never lock; a reload builds a new snapshot and publishes it whole.
+// Menu screens only touch the entries on the page they show, so large catalogues render
+// as fast as small ones.
+//
+// Format: Genre,Movie,Price,Format,Duration,Showtimes
+//   Duration is in minutes, Showtimes are separated by semicolon ("1:00 PM;7:00 PM").
+//   Only Genre and Movie are required; files with just those two columns get the
+//   defaults below and the old rotating showtimes.
+public final class MovieCatalogue {
+    static final String MOVIES_FILE = "movies.csv";
+    static final double DEFAULT_PRICE = 50.0;
+    static final String DEFAULT_FORMAT = "Standard";
+    static final String[] DEFAULT_SHOWTIMES = {"1:00 PM", "4:00 PM", "7:00 PM", "9:30 PM"};
+
+    private static volatile MovieCatalogue current;
+
+    private final List<String> genres;
+    private final Map<String, List<Movie>> moviesByGenre;
+    private final Map<String, Movie> moviesByTitle; // Lowercase title -> movie
+    private final List<String> problems; // Rows that were skipped, with the reason
+
+    private MovieCatalogue(List<String> genres, Map<String, List<Movie>> moviesByGenre,
+                           Map<String, Movie> moviesByTitle, List<String> problems) {
+        this.genres = Collections.unmodifiableList(genres);
+        this.moviesByGenre = Collections.unmodifiableMap(moviesByGenre);
+        this.moviesByTitle = Collections.unmodifiableMap(moviesByTitle);
+        this.problems = Collections.unmodifiableList(problems);
+    }
+
+    // The published catalogue, loaded from movies.csv on first use
+    public static MovieCatalogue current() {
+        MovieCatalogue catalogue = current;
+        if (catalogue == null) {
+            synchronized (MovieCatalogue.class) {
+                catalogue = current;
+                if (catalogue == null) {
+                    catalogue = loadOrEmpty(MOVIES_FILE);
+                    current = catalogue;
+                }
+            }
+        }
+        return catalogue;
+    }
+
+    // Swap in a new catalogue; sessions already holding the old one keep using it
+    public static void publish(MovieCatalogue catalogue) {
+        current = catalogue;
+    }
+
+    public static MovieCatalogue load(String file) throws IOException {
+        try (Reader reader = new BufferedReader(new FileReader(file, StandardCharsets.UTF_8))) {
+            return parse(reader);
+        }
+    }
+
+    public static MovieCatalogue parse(Reader input) throws IOException {
+        List<String> genres = new ArrayList<>();
+        Map<String, List<Movie>> moviesByGenre = new HashMap<>();
+        Map<String, Movie> moviesByTitle = new LinkedHashMap<>();
+        List<String> problems = new ArrayList<>();
+
+        CsvReader reader = new CsvReader(input);
+        int line = 0;
+        while (reader.next()) {
+            line++;
+            if (line == 1 && reader.fieldEqualsIgnoreCase(0, "Genre")) {
+                continue; // Header
+            }
+            if (reader.fieldCount() == 1 && reader.isEmpty(0)) {
+                continue; // Blank line
+            }
+            if (reader.fieldCount() < 2 || reader.isEmpty(0) || reader.isEmpty(1)) {
+                problems.add("Line " + line + ": genre and movie are required");
+                continue;
+            }
+
+            String genre = reader.getString(0);
+            String title = reader.getString(1);
+            String titleKey = title.toLowerCase(Locale.ROOT);
+            if (moviesByTitle.containsKey(titleKey)) {
+                problems.add("Line " + line + ": duplicate movie '" + title + "'");
+                continue;
+            }
+
+            List<Movie> movies = moviesByGenre.get(genre);
+            if (movies == null) {
+                movies = new ArrayList<>();
+                moviesByGenre.put(genre, movies);
+                genres.add(genre);
+            }
+
+            Movie movie;
+            try {
+                movie = readMovie(reader, genre, title, movies.size());
+            } catch (IllegalArgumentException e) {
+                problems.add("Line " + line + ": " + e.getMessage());
+                continue;
+            }
+            movies.add(movie);
+            moviesByTitle.put(titleKey, movie);
+        }
+
+        for (Map.Entry<String, List<Movie>> entry : moviesByGenre.entrySet()) {
+            entry.setValue(Collections.unmodifiableList(entry.getValue()));
+        }
+        return new MovieCatalogue(genres, moviesByGenre, moviesByTitle, problems);
+    }
+
+    public List<String> getGenres() {
+        return genres;
+    }
+
+    // Movies of a genre in file order; empty if the genre is unknown
+    public List<Movie> getMovies(String genre) {
+        List<Movie> movies = moviesByGenre.get(genre);
+        return movies != null ? movies : Collections.emptyList();
+    }
+
+    // Every movie, in file order
+    public Collection<Movie> getMovies() {
+        return moviesByTitle.values();
+    }
+
+    public Movie findMovie(String title) {
+        return title != null ? moviesByTitle.get(title.trim().toLowerCase(Locale.ROOT)) : null;
+    }
+
+    public int size() {
+        return moviesByTitle.size();
+    }
+
+    public List<String> getProblems() {
+        return problems;
+    }
+
+    private static Movie readMovie(CsvReader reader, String genre, String title, int position) {
+        double price = DEFAULT_PRICE;
+        if (reader.fieldCount() > 2 && !reader.isEmpty(2)) {
+            try {
+                price = reader.getDouble(2);
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("invalid price '" + reader.getString(2) + "'");
+            }
+            if (price < 0 || Double.isNaN(price) || Double.isInfinite(price)) {
+                throw new IllegalArgumentException("invalid price '" + reader.getString(2) + "'");
+            }
+        }
+
+        String format = DEFAULT_FORMAT;
+        if (reader.fieldCount() > 3 && !reader.isEmpty(3)) {
+            format = reader.getString(3);
+        }
+
+        int duration = 0;
+        if (reader.fieldCount() > 4 && !reader.isEmpty(4)) {
+            try {
+                duration = reader.getInt(4);
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("invalid duration '" + reader.getString(4) + "'");
+            }
+            if (duration < 0) {
+                throw new IllegalArgumentException("invalid duration '" + reader.getString(4) + "'");
+            }
+        }
+
+        List<String> showtimes = new ArrayList<>();
+        if (reader.fieldCount() > 5) {
+            for (String showtime : reader.getString(5).split(";")) {
+                showtime = showtime.trim();
+                if (!showtime.isEmpty() && !showtimes.contains(showtime)) {
+                    showtimes.add(showtime);
+                }
+            }
+        }
+        if (showtimes.isEmpty()) {
+            // Same rotation the booking screen has always used
+            showtimes.add(DEFAULT_SHOWTIMES[position % DEFAULT_SHOWTIMES.length]);
+        }
+
+        return new Movie(title, genre, price, format, duration, showtimes);
+    }
+
+    private static MovieCatalogue loadOrEmpty(String file) {
+        try {
+            MovieCatalogue catalogue = load(file);
+            for (String problem : catalogue.getProblems()) {
+                System.out.println("⚠️  " + file + ": " + problem);
+            }
+            return catalogue;
+        } catch (IOException e) {
+            System.out.println("❌ An error occurred while loading movies: " + e.getMessage());
+            return new MovieCatalogue(new ArrayList<>(), new HashMap<>(), new HashMap<>(), new ArrayList<>());
+        }
+    }
+}
@@ -0,0 +1,505 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+// Search over movie titles and genres.
+// Titles and genres are split into lowercase words. Each distinct word gets a term ID and an
+// inverted list of the movies it appears in (title and genre words are kept apart so title hits
+// rank higher). The words also live in a prefix trie, which answers both prefix lookups
+// ("incep" -> inception) and typo-tolerant lookups: a bounded edit-distance walk of the trie
+// finds words within 1 edit (words of 4-7 letters) or 2 edits (8 letters or more).
+//
+// Results are ranked by how many query words matched, then by score (exact > prefix > typo,
+// title > genre), then by shorter title. Only the best `limit` movies are kept, so common words
+// do not cost a full sort.
+//
+// The index follows MovieCatalogue: when a new catalogue is published, only movies that were
+// added, removed or moved to another genre are re-indexed.
+public class MovieSearchIndex {
+    static final int DEFAULT_LIMIT = 50;
+    private static final int MAX_QUERY_WORDS = 16;
+    private static final int MAX_PREFIX_TERMS = 256; // Words a short prefix may expand to
+    private static final float GENRE_WEIGHT = 0.3f;
+
+    private static MovieSearchIndex instance;
+
+    private MovieCatalogue indexed;
+
+    // Movies by document ID; a removed movie's slot is reused
+    private Movie[] docs = new Movie[1024];
+    private int[] titleLengths = new int[1024]; // Kept beside docs so ranking ties stay in one array
+    private int docCount = 0;
+    private final Map<String, Integer> docIds = new HashMap<>(); // Lowercase title -> document ID
+    private final IntList freeDocs = new IntList();
+
+    // Words by term ID
+    private final Map<String, Integer> termIds = new HashMap<>();
+    private final List<IntList> titlePostings = new ArrayList<>();
+    private final List<IntList> genrePostings = new ArrayList<>();
+    private final TrieNode trie = new TrieNode();
+
+    // Per-search scratch space, indexed by document ID
+    private float[] scores = new float[1024];
+    private float[] wordScores = new float[1024];
+    private int[] matchedWords = new int[1024];
+    private final IntList touched = new IntList();
+    private final IntList touchedByWord = new IntList();
+
+    public static synchronized MovieSearchIndex getInstance() {
+        if (instance == null) {
+            instance = new MovieSearchIndex();
+            instance.update(MovieCatalogue.current());
+        }
+        return instance;
+    }
+
+    // Bring an already-built index up to date with a newly published catalogue
+    static void catalogueChanged(MovieCatalogue catalogue) {
+        MovieSearchIndex index;
+        synchronized (MovieSearchIndex.class) {
+            index = instance;
+        }
+        if (index != null) {
+            index.update(catalogue);
+        }
+    }
+
+    // Movies matching the query, best first
+    public List<Movie> search(String query) {
+        return search(query, DEFAULT_LIMIT);
+    }
+
+    public synchronized List<Movie> search(String query, int limit) {
+        update(MovieCatalogue.current());
+
+        List<String> words = tokenize(query);
+        if (words.isEmpty() || limit <= 0) {
+            return Collections.emptyList();
+        }
+        if (words.size() > MAX_QUERY_WORDS) {
+            words = words.subList(0, MAX_QUERY_WORDS);
+        }
+
+        for (int w = 0; w < words.size(); w++) {
+            Map<Integer, Float> terms = matchingTerms(words.get(w));
+            for (Map.Entry<Integer, Float> term : terms.entrySet()) {
+                float weight = term.getValue();
+                score(titlePostings.get(term.getKey()), weight);
+                score(genrePostings.get(term.getKey()), weight * GENRE_WEIGHT);
+            }
+            // Fold this word's best score per movie into the totals
+            for (int i = 0; i < touchedByWord.size(); i++) {
+                int doc = touchedByWord.get(i);
+                if (matchedWords[doc] == 0 && scores[doc] == 0) {
+                    touched.add(doc);
+                }
+                scores[doc] += wordScores[doc];
+                matchedWords[doc] |= 1 << w;
+                wordScores[doc] = 0;
+            }
+            touchedByWord.clear();
+        }
+
+        // Keep the best `limit` movies in a heap with the worst of them on top
+        int[] heap = new int[Math.min(limit, touched.size())];
+        int heapSize = 0;
+        for (int i = 0; i < touched.size(); i++) {
+            int doc = touched.get(i);
+            if (heapSize < heap.length) {
+                heap[heapSize] = doc;
+                siftUp(heap, heapSize++);
+            } else if (compareRank(doc, heap[0]) < 0) {
+                heap[0] = doc;
+                siftDown(heap, heapSize);
+            }
+        }
+
+        Movie[] ranked = new Movie[heapSize];
+        while (heapSize > 0) {
+            ranked[--heapSize] = docs[heap[0]];
+            heap[0] = heap[heapSize];
+            siftDown(heap, heapSize);
+        }
+        for (int i = 0; i < touched.size(); i++) {
+            int doc = touched.get(i);
+            scores[doc] = 0;
+            matchedWords[doc] = 0;
+        }
+        touched.clear();
+        return Arrays.asList(ranked);
+    }
+
+    // Bring the index in line with a catalogue, re-indexing only the movies that changed
+    public synchronized void update(MovieCatalogue catalogue) {
+        if (catalogue == indexed) {
+            return;
+        }
+
+        Map<String, Movie> incoming = new HashMap<>();
+        for (Movie movie : catalogue.getMovies()) {
+            incoming.put(titleKey(movie.getTitle()), movie);
+        }
+
+        // Drop movies that are gone or changed genre; refresh the others in place
+        List<Integer> removed = new ArrayList<>();
+        for (String key : new ArrayList<>(docIds.keySet())) {
+            int doc = docIds.get(key);
+            Movie next = incoming.get(key);
+            if (next != null && next.getGenre().equals(docs[doc].getGenre())) {
+                docs[doc] = next; // Same words, new price/showtimes
+                incoming.remove(key);
+            } else {
+                removed.add(doc);
+                docIds.remove(key);
+            }
+        }
+        unindex(removed);
+        for (Movie movie : catalogue.getMovies()) {
+            String key = titleKey(movie.getTitle());
+            if (incoming.containsKey(key)) {
+                docIds.put(key, index(movie));
+            }
+        }
+        indexed = catalogue;
+    }
+
+    public synchronized int size() {
+        return docIds.size();
+    }
+
+    // Lowercase words of a title, genre or query
+    static List<String> tokenize(String text) {
+        List<String> words = new ArrayList<>();
+        if (text == null) {
+            return words;
+        }
+        String lower = text.toLowerCase(Locale.ROOT);
+        int start = -1;
+        for (int i = 0; i <= lower.length(); i++) {
+            boolean wordChar = i < lower.length() && Character.isLetterOrDigit(lower.charAt(i));
+            if (wordChar && start < 0) {
+                start = i;
+            } else if (!wordChar && start >= 0) {
+                words.add(lower.substring(start, i));
+                start = -1;
+            }
+        }
+        return words;
+    }
+
+    // Term IDs that match a query word, with the best weight for each
+    private Map<Integer, Float> matchingTerms(String word) {
+        Map<Integer, Float> terms = new HashMap<>();
+
+        // Exact and prefix matches: every word under the prefix's trie node
+        TrieNode node = trie;
+        for (int i = 0; i < word.length() && node != null; i++) {
+            node = node.child(word.charAt(i));
+        }
+        if (node != null) {
+            List<TrieNode> queue = new ArrayList<>();
+            queue.add(node);
+            int found = 0;
+            for (int q = 0; q < queue.size() && found < MAX_PREFIX_TERMS; q++) {
+                TrieNode current = queue.get(q);
+                if (current.term >= 0) {
+                    found++;
+                    float weight = current.depth == word.length()
+                            ? 1.0f
+                            : 0.5f + 0.4f * word.length() / current.depth;
+                    terms.put(current.term, weight);
+                }
+                for (int c = 0; c < current.size; c++) {
+                    queue.add(current.children[c]);
+                }
+            }
+        }
+
+        // Typo-tolerant matches
+        int maxEdits = word.length() >= 8 ? 2 : word.length() >= 4 ? 1 : 0;
+        if (maxEdits > 0) {
+            int[] row = new int[word.length() + 1];
+            for (int i = 0; i <= word.length(); i++) {
+                row[i] = i;
+            }
+            for (int c = 0; c < trie.size; c++) {
+                fuzzy(trie.children[c], word, row, maxEdits, terms);
+            }
+        }
+        return terms;
+    }
+
+    // Levenshtein walk: one DP row per trie level, abandoning branches that are already too far off
+    private void fuzzy(TrieNode node, String word, int[] previous, int maxEdits, Map<Integer, Float> terms) {
+        int columns = word.length() + 1;
+        int[] row = new int[columns];
+        row[0] = previous[0] + 1;
+        int rowMin = row[0];
+        for (int i = 1; i < columns; i++) {
+            int cost = word.charAt(i - 1) == node.letter ? 0 : 1;
+            row[i] = Math.min(Math.min(row[i - 1] + 1, previous[i] + 1), previous[i - 1] + cost);
+            rowMin = Math.min(rowMin, row[i]);
+        }
+
+        int distance = row[columns - 1];
+        if (node.term >= 0 && distance > 0 && distance <= maxEdits) {
+            float weight = 0.6f / (1 + distance);
+            Float existing = terms.get(node.term);
+            if (existing == null || existing < weight) {
+                terms.put(node.term, weight);
+            }
+        }
+        if (rowMin <= maxEdits) {
+            for (int c = 0; c < node.size; c++) {
+                fuzzy(node.children[c], word, row, maxEdits, terms);
+            }
+        }
+    }
+
+    // Keep the best weight per movie for the current query word
+    private void score(IntList postings, float weight) {
+        for (int i = 0; i < postings.size(); i++) {
+            int doc = postings.get(i);
+            if (wordScores[doc] == 0) {
+                touchedByWord.add(doc);
+                wordScores[doc] = weight;
+            } else if (wordScores[doc] < weight) {
+                wordScores[doc] = weight;
+            }
+        }
+    }
+
+    private void siftUp(int[] heap, int i) {
+        int doc = heap[i];
+        while (i > 0) {
+            int parent = (i - 1) >>> 1;
+            if (compareRank(heap[parent], doc) >= 0) {
+                break;
+            }
+            heap[i] = heap[parent];
+            i = parent;
+        }
+        heap[i] = doc;
+    }
+
+    private void siftDown(int[] heap, int size) {
+        if (size == 0) {
+            return;
+        }
+        int doc = heap[0];
+        int i = 0;
+        while (true) {
+            int child = 2 * i + 1;
+            if (child >= size) {
+                break;
+            }
+            if (child + 1 < size && compareRank(heap[child + 1], heap[child]) > 0) {
+                child++;
+            }
+            if (compareRank(heap[child], doc) <= 0) {
+                break;
+            }
+            heap[i] = heap[child];
+            i = child;
+        }
+        heap[i] = doc;
+    }
+
+    // Negative if document a ranks ahead of document b
+    private int compareRank(int a, int b) {
+        int coverage = Integer.bitCount(matchedWords[b]) - Integer.bitCount(matchedWords[a]);
+        if (coverage != 0) {
+            return coverage;
+        }
+        int score = Float.compare(scores[b], scores[a]);
+        if (score != 0) {
+            return score;
+        }
+        int length = titleLengths[a] - titleLengths[b];
+        if (length != 0) {
+            return length;
+        }
+        return docs[a].getTitle().compareTo(docs[b].getTitle());
+    }
+
+    private int index(Movie movie) {
+        int doc;
+        if (freeDocs.size() > 0) {
+            doc = freeDocs.removeLast();
+        } else {
+            doc = docCount++;
+            if (doc == docs.length) {
+                int capacity = docs.length * 2;
+                docs = Arrays.copyOf(docs, capacity);
+                titleLengths = Arrays.copyOf(titleLengths, capacity);
+                scores = Arrays.copyOf(scores, capacity);
+                wordScores = Arrays.copyOf(wordScores, capacity);
+                matchedWords = Arrays.copyOf(matchedWords, capacity);
+            }
+        }
+        docs[doc] = movie;
+        titleLengths[doc] = movie.getTitle().length();
+        for (String word : distinct(tokenize(movie.getTitle()))) {
+            titlePostings.get(termId(word)).add(doc);
+        }
+        for (String word : distinct(tokenize(movie.getGenre()))) {
+            genrePostings.get(termId(word)).add(doc);
+        }
+        return doc;
+    }
+
+    // Take movies out of the inverted lists, filtering each affected list once
+    private void unindex(List<Integer> removedDocs) {
+        if (removedDocs.isEmpty()) {
+            return;
+        }
+        boolean[] removed = new boolean[docCount];
+        Set<Integer> titleTerms = new HashSet<>();
+        Set<Integer> genreTerms = new HashSet<>();
+        for (int doc : removedDocs) {
+            removed[doc] = true;
+            for (String word : tokenize(docs[doc].getTitle())) {
+                titleTerms.add(termIds.get(word));
+            }
+            for (String word : tokenize(docs[doc].getGenre())) {
+                genreTerms.add(termIds.get(word));
+            }
+        }
+        for (int term : titleTerms) {
+            titlePostings.get(term).removeAll(removed);
+        }
+        for (int term : genreTerms) {
+            genrePostings.get(term).removeAll(removed);
+        }
+        for (int doc : removedDocs) {
+            docs[doc] = null;
+            freeDocs.add(doc);
+        }
+    }
+
+    // A word's term ID, adding it to the trie the first time it is seen.
+    // Words are never taken out of the trie; a word with no movies left just matches nothing.
+    private int termId(String word) {
+        Integer id = termIds.get(word);
+        if (id != null) {
+            return id;
+        }
+        id = titlePostings.size();
+        termIds.put(word, id);
+        titlePostings.add(new IntList());
+        genrePostings.add(new IntList());
+
+        TrieNode node = trie;
+        for (int i = 0; i < word.length(); i++) {
+            node = node.childOrAdd(word.charAt(i));
+        }
+        node.term = id;
+        return id;
+    }
+
+    private static List<String> distinct(List<String> words) {
+        List<String> unique = new ArrayList<>(words.size());
+        for (String word : words) {
+            if (!unique.contains(word)) {
+                unique.add(word);
+            }
+        }
+        return unique;
+    }
+
+    private static String titleKey(String title) {
+        return title.trim().toLowerCase(Locale.ROOT);
+    }
+
+    // Trie node with its children kept in letter order
+    private static final class TrieNode {
+        private static final TrieNode[] NO_CHILDREN = new TrieNode[0];
+
+        char letter;
+        int depth;
+        int term = -1; // Term ID if a word ends here
+        TrieNode[] children = NO_CHILDREN;
+        int size;
+
+        TrieNode child(char c) {
+            int i = find(c);
+            return i >= 0 ? children[i] : null;
+        }
+
+        TrieNode childOrAdd(char c) {
+            int i = find(c);
+            if (i >= 0) {
+                return children[i];
+            }
+            i = -(i + 1);
+            if (size == children.length) {
+                children = Arrays.copyOf(children, Math.max(2, size * 2));
+            }
+            System.arraycopy(children, i, children, i + 1, size - i);
+            TrieNode node = new TrieNode();
+            node.letter = c;
+            node.depth = depth + 1;
+            children[i] = node;
+            size++;
+            return node;
+        }
+
+        private int find(char c) {
+            int low = 0;
+            int high = size - 1;
+            while (low <= high) {
+                int mid = (low + high) >>> 1;
+                char letterAtMid = children[mid].letter;
+                if (letterAtMid < c) {
+                    low = mid + 1;
+                } else if (letterAtMid > c) {
+                    high = mid - 1;
+                } else {
+                    return mid;
+                }
+            }
+            return -(low + 1);
+        }
+    }
+
+    // Growable list of primitive ints
+    private static final class IntList {
+        private int[] values = new int[4];
+        private int size;
+
+        int size() { return size; }
+        int get(int i) { return values[i]; }
+
+        void add(int value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+
+        int removeLast() {
+            return values[--size];
+        }
+
+        // Drop every value flagged in the given table
+        void removeAll(boolean[] flagged) {
+            int kept = 0;
+            for (int i = 0; i < size; i++) {
+                if (!flagged[values[i]]) {
+                    values[kept++] = values[i];
+                }
+            }
+            size = kept;
+        }
+
+        void clear() {
+            size = 0;
+        }
+    }
+}
@@ -1,12 +1,32 @@
 import java.util.ArrayList;
+import java.util.List;
 import java.util.Scanner;
 import java.io.*;
+import java.nio.charset.StandardCharsets;
 
 public class My_Bookings {
-    private Scanner scanner = new Scanner(System.in);
+    private Scanner scanner;
+    private PrintStream out;
+    private User_authen auth; // Who is logged in at this terminal
 
+    private static final int PAGE_SIZE = 10; // Bookings per page in the views
     // CSV file path - CHANGED to match BookingTickets.java
-    private static final String BOOKINGS_FILE = "movie_bookings.csv";
+    static final String BOOKINGS_FILE = "movie_bookings.csv";
+
+    public My_Bookings() {
+        this(new Scanner(System.in), System.out);
+    }
+
+    public My_Bookings(Scanner scanner, PrintStream out) {
+        this(scanner, out, new User_authen(scanner, out));
+    }
+
+    // Session-bound constructor: reads and writes through the given console
+    public My_Bookings(Scanner scanner, PrintStream out, User_authen auth) {
+        this.scanner = scanner;
+        this.out = out;
+        this.auth = auth;
+    }
 
     // Inner class to represent a booking
     public static class Booking {
@@ -72,6 +92,8 @@ public class My_Bookings {
         public String getCustomerEmail() { return customerEmail; }
         public String getStatus() { return status; }
         public String getBookingDate() { return bookingDate + " " + bookingTime; }
+        public String getBookingDay() { return bookingDate; }
+        public String getBookingTime() { return bookingTime; }
         public String getShowtime() { return showtime; }
         public String getSeats() { return seats != null ? seats : ""; }
 
@@ -82,95 +104,47 @@ public class My_Bookings {
             this.numberOfTickets = numberOfTickets;
             this.totalPrice = numberOfTickets * pricePerTicket;
         }
+        // Restore ticket count and total exactly as recorded in the booking journal
+        void restoreTickets(int numberOfTickets, double totalPrice) {
+            this.numberOfTickets = numberOfTickets;
+            this.totalPrice = totalPrice;
+        }
 
         // Convert booking to CSV line (BookingTickets format)
         public String toCSV() {
             String seatsStr = seats != null ? seats : "";
             if (status != null && !status.isEmpty()) {
                 // Include status if present
-                return bookingId + "," +
-                       movieName + "," +
-                       customerName + "," +
-                       customerEmail + "," +
-                       numberOfTickets + "," +
-                       String.format("%.2f", totalPrice) + "," +
-                       bookingDate + "," +
-                       bookingTime + "," +
-                       showtime + "," +
-                       seatsStr + "," +
-                       status;
+                return CsvWriter.formatRow(String.valueOf(bookingId), movieName, customerName, customerEmail,
+                        String.valueOf(numberOfTickets), CsvWriter.formatPrice(totalPrice),
+                        bookingDate, bookingTime, showtime, seatsStr, status);
             } else {
                 // No status field
-                return bookingId + "," +
-                       movieName + "," +
-                       customerName + "," +
-                       customerEmail + "," +
-                       numberOfTickets + "," +
-                       String.format("%.2f", totalPrice) + "," +
-                       bookingDate + "," +
-                       bookingTime + "," +
-                       showtime + "," +
-                       seatsStr;
+                return CsvWriter.formatRow(String.valueOf(bookingId), movieName, customerName, customerEmail,
+                        String.valueOf(numberOfTickets), CsvWriter.formatPrice(totalPrice),
+                        bookingDate, bookingTime, showtime, seatsStr);
             }
         }
     }
 
     // Method to read all bookings from CSV file
     public static ArrayList<Booking> loadAllBookings() {
+        return loadAllBookings(BOOKINGS_FILE);
+    }
+
+    public static ArrayList<Booking> loadAllBookings(String bookingsFile) {
         ArrayList<Booking> bookings = new ArrayList<>();
-        File file = new File(BOOKINGS_FILE);
+        File file = new File(bookingsFile);
 
         if (!file.exists()) {
             return bookings; // Return empty list if file doesn't exist
         }
 
-        try (BufferedReader reader = new BufferedReader(new FileReader(BOOKINGS_FILE))) {
-            String line;
-
-            while ((line = reader.readLine()) != null) {
+        try (CsvReader reader = new CsvReader(new BufferedReader(new FileReader(file, StandardCharsets.UTF_8)))) {
+            while (reader.next()) {
                 try {
-                    String[] parts = line.split(",");
-                    
-                    // Handle formats:
-                    // Format 1 (new BookingTickets with seats): BookingID,MovieName,CustomerName,CustomerEmail,Tickets,TotalPrice,Date,Time,Showtime,Seats
-                    // Format 2 (with status): BookingID,MovieName,CustomerName,CustomerEmail,Tickets,TotalPrice,Date,Time,Showtime,Seats,Status
-                    // Format 3 (old format without seats): BookingID,MovieName,CustomerName,CustomerEmail,Tickets,TotalPrice,Date,Time,Showtime
-                    
-                    if (parts.length >= 9) {
-                        int bookingId = Integer.parseInt(parts[0].trim());
-                        String movieName = parts[1].trim();
-                        String customerName = parts[2].trim();
-                        String customerEmail = parts[3].trim();
-                        int numberOfTickets = Integer.parseInt(parts[4].trim());
-                        double totalPrice = Double.parseDouble(parts[5].trim());
-                        String bookingDate = parts[6].trim();
-                        String bookingTime = parts[7].trim();
-                        String showtime = parts[8].trim();
-                        String seats = "";
-                        String status = null;
-                        
-                        // Check if seats field exists (10th field)
-                        if (parts.length >= 10) {
-                            seats = parts[9].trim();
-                        }
-                        
-                        // Check if status field exists (11th field)
-                        if (parts.length >= 11) {
-                            status = parts[10].trim();
-                        }
-                        
-                        Booking booking;
-                        if (status != null && !status.isEmpty()) {
-                            // Has status field
-                            booking = new Booking(bookingId, movieName, customerName, customerEmail,
-                                                numberOfTickets, totalPrice, bookingDate, bookingTime, 
-                                                showtime, seats, status);
-                        } else {
-                            // No status field, use default
-                            booking = new Booking(bookingId, movieName, customerName, customerEmail,
-                                                numberOfTickets, totalPrice, bookingDate, bookingTime, 
-                                                showtime, seats);
-                        }
+                    Booking booking = parseBooking(reader);
+                    if (booking != null) {
                         bookings.add(booking);
                     }
                 } catch (Exception e) {
@@ -184,87 +158,112 @@ public class My_Bookings {
         return bookings;
     }
 
-    // Method to update booking in CSV file
-    public static void updateBookingInFile(Booking updatedBooking) {
-        ArrayList<Booking> allBookings = loadAllBookings();
-
-        // Find and update the booking
-        for (int i = 0; i < allBookings.size(); i++) {
-            if (allBookings.get(i).getBookingId() == updatedBooking.getBookingId()) {
-                allBookings.set(i, updatedBooking);
-                break;
-            }
+    // Build a booking from the current CSV record, or null if the record is too short.
+    // Handle formats:
+    // Format 1 (new BookingTickets with seats): BookingID,MovieName,CustomerName,CustomerEmail,Tickets,TotalPrice,Date,Time,Showtime,Seats
+    // Format 2 (with status): BookingID,MovieName,CustomerName,CustomerEmail,Tickets,TotalPrice,Date,Time,Showtime,Seats,Status
+    // Format 3 (old format without seats): BookingID,MovieName,CustomerName,CustomerEmail,Tickets,TotalPrice,Date,Time,Showtime
+    static Booking parseBooking(CsvReader row) {
+        if (row.fieldCount() < 9) {
+            return null;
         }
-
-        // Write all bookings back to file
-        saveAllBookings(allBookings);
+        int bookingId = row.getInt(0);
+        String movieName = row.getString(1);
+        String customerName = row.getString(2);
+        String customerEmail = row.getString(3);
+        int numberOfTickets = row.getInt(4);
+        double totalPrice = row.getDouble(5);
+        String bookingDate = row.getString(6);
+        String bookingTime = row.getString(7);
+        String showtime = row.getString(8);
+
+        // Check if seats field exists (10th field)
+        String seats = row.fieldCount() >= 10 ? row.getString(9) : "";
+
+        // Check if status field exists (11th field)
+        if (row.fieldCount() >= 11 && !row.isEmpty(10)) {
+            return new Booking(bookingId, movieName, customerName, customerEmail,
+                    numberOfTickets, totalPrice, bookingDate, bookingTime,
+                    showtime, seats, row.getString(10));
+        }
+        // No status field, use default
+        return new Booking(bookingId, movieName, customerName, customerEmail,
+                numberOfTickets, totalPrice, bookingDate, bookingTime,
+                showtime, seats);
     }
 
-    // Save all bookings to CSV file
-    private static void saveAllBookings(ArrayList<Booking> bookings) {
-        try (PrintWriter writer = new PrintWriter(new FileWriter(BOOKINGS_FILE))) {
-            // Write all bookings (no header needed)
-            for (Booking booking : bookings) {
-                writer.println(booking.toCSV());
-            }
+    // Method to update booking in CSV file
+    public static void updateBookingInFile(Booking updatedBooking) {
+        try {
+            BookingStore.getInstance().update(updatedBooking);
         } catch (IOException e) {
             System.out.println("Error saving bookings: " + e.getMessage());
         }
     }
 
-    // Method to display all bookings
+    // Method to display all bookings, newest first, one page at a time
     public void viewAllBookings() {
-        System.out.println("\n=== ALL BOOKINGS ===");
+        out.println("\n=== ALL BOOKINGS ===");
 
-        ArrayList<Booking> allBookings = loadAllBookings();
-
-        if (allBookings.isEmpty()) {
-            System.out.println("No bookings found.");
+        BookingStore store = BookingStore.getInstance();
+        if (store.size() == 0) {
+            out.println("No bookings found.");
             return;
         }
 
-        System.out.println("Total Bookings: " + allBookings.size());
-        System.out.println("─────────────────────────────────────────────────────────────────");
-
-        for (Booking booking : allBookings) {
-            displayBookingDetails(booking);
-            System.out.println("─────────────────────────────────────────────────────────────────");
-        }
+        out.println("Total Bookings: " + store.size());
+        showPages(new BookingQuery());
     }
 
-    // Method to view bookings by email
+    // Method to view the logged-in user's bookings, newest first, one page at a time
     public void viewBookingsByEmail() {
-        System.out.print("\nEnter your email to view bookings: ");
-        String email = scanner.nextLine().trim();
-
-        ArrayList<Booking> allBookings = loadAllBookings();
-        ArrayList<Booking> userBookings = new ArrayList<>();
-
-        for (Booking booking : allBookings) {
-            if (booking.getCustomerEmail().equalsIgnoreCase(email)) {
-                userBookings.add(booking);
-            }
+        SessionManager.Session session = auth.requireLogin();
+        if (session == null) {
+            out.println("You need to be logged in to view your bookings.");
+            return;
         }
+        String email = session.getEmail();
 
-        System.out.println("\n=== BOOKINGS FOR " + email + " ===");
+        out.println("\n=== BOOKINGS FOR " + email + " ===");
 
-        if (userBookings.isEmpty()) {
-            System.out.println("No bookings found for this email.");
+        int total = BookingStore.getInstance().countByEmail(email);
+        if (total == 0) {
+            out.println("No bookings found for this email.");
             return;
         }
 
-        System.out.println("Total Bookings: " + userBookings.size());
-        System.out.println("─────────────────────────────────────────────────────────────────");
+        out.println("Total Bookings: " + total);
+        showPages(new BookingQuery().email(email));
+    }
 
-        for (Booking booking : userBookings) {
-            displayBookingDetails(booking);
-            System.out.println("─────────────────────────────────────────────────────────────────");
+    // Print a query's results page by page; only the pages asked for are fetched
+    private void showPages(BookingQuery query) {
+        BookingStore store = BookingStore.getInstance();
+        query.limit(PAGE_SIZE);
+        int shown = 0;
+        while (true) {
+            BookingQuery.Page page = store.query(query);
+            out.println("─────────────────────────────────────────────────────────────────");
+            for (Booking booking : page.getBookings()) {
+                displayBookingDetails(booking);
+                out.println("─────────────────────────────────────────────────────────────────");
+            }
+            shown += page.getBookings().size();
+
+            if (!page.hasMore()) {
+                return;
+            }
+            out.print("Showing " + shown + " so far. Press Enter for more, or type Q to stop: ");
+            if (scanner.nextLine().trim().equalsIgnoreCase("q")) {
+                return;
+            }
+            query.after(page.getNextCursor());
         }
     }
 
     // Method to search booking by ID
     public void searchBookingById() {
-        System.out.print("\nEnter Booking ID: ");
+        out.print("\nEnter Booking ID: ");
 
         try {
             int bookingId = scanner.nextInt();
@@ -273,56 +272,49 @@ public class My_Bookings {
             Booking foundBooking = findBookingById(bookingId);
 
             if (foundBooking != null) {
-                System.out.println("\n=== BOOKING FOUND ===");
-                System.out.println("─────────────────────────────────────────────────────────────────");
+                out.println("\n=== BOOKING FOUND ===");
+                out.println("─────────────────────────────────────────────────────────────────");
                 displayBookingDetails(foundBooking);
-                System.out.println("─────────────────────────────────────────────────────────────────");
+                out.println("─────────────────────────────────────────────────────────────────");
             } else {
-                System.out.println("Booking ID " + bookingId + " not found.");
+                out.println("Booking ID " + bookingId + " not found.");
             }
         } catch (Exception e) {
-            System.out.println("Invalid input! Please enter a valid booking ID.");
+            out.println("Invalid input! Please enter a valid booking ID.");
             scanner.nextLine(); // Clear invalid input
         }
     }
 
     // Helper method to find booking by ID
     public static Booking findBookingById(int bookingId) {
-        ArrayList<Booking> allBookings = loadAllBookings();
-
-        for (Booking booking : allBookings) {
-            if (booking.getBookingId() == bookingId) {
-                return booking;
-            }
-        }
-        return null;
+        return BookingStore.getInstance().findById(bookingId);
     }
 
     // Helper method to display booking details
     private void displayBookingDetails(Booking booking) {
-        System.out.println("Booking ID      : " + booking.getBookingId());
-        System.out.println("Movie           : " + booking.getMovieName());
-        System.out.println("Tickets         : " + booking.getNumberOfTickets());
+        out.println("Booking ID      : " + booking.getBookingId());
+        out.println("Movie           : " + booking.getMovieName());
+        out.println("Tickets         : " + booking.getNumberOfTickets());
         String seatsStr = booking.getSeats();
         if (seatsStr != null && !seatsStr.isEmpty()) {
-            System.out.println("Seats           : " + seatsStr.replace(";", ", "));
+            out.println("Seats           : " + seatsStr.replace(";", ", "));
         }
-        System.out.println("Price per Ticket: $" + String.format("%.2f", booking.getTicketPrice()));
-        System.out.println("Total Price     : $" + String.format("%.2f", booking.getTotalPrice()));
-        System.out.println("Customer Name   : " + booking.getCustomerName());
-        System.out.println("Email           : " + booking.getCustomerEmail());
-        System.out.println("Showtime        : " + booking.getShowtime());
-        System.out.println("Status          : " + booking.getStatus());
-        System.out.println("Booking Date    : " + booking.getBookingDate());
+        out.println("Price per Ticket: $" + String.format("%.2f", booking.getTicketPrice()));
+        out.println("Total Price     : $" + String.format("%.2f", booking.getTotalPrice()));
+        out.println("Customer Name   : " + booking.getCustomerName());
+        out.println("Email           : " + booking.getCustomerEmail());
+        out.println("Showtime        : " + booking.getShowtime());
+        out.println("Status          : " + booking.getStatus());
+        out.println("Booking Date    : " + booking.getBookingDate());
     }
 
     // Method to show booking menu
     public void showBookingsMenu() {
         while (true) {
-            System.out.println("\n=== MY BOOKINGS MENU ===");
-            System.out.println("1. View My Bookings (by Email)");
-            System.out.println("2. Back to Main Menu");
-            System.out.print("Enter your choice: ");
+            out.println("\n=== MY BOOKINGS MENU ===");
+            out.println("1. View My Bookings");
+            out.println("2. Back to Main Menu");
+            out.print("Enter your choice: ");
 
             try {
                 int choice = scanner.nextInt();
@@ -335,10 +327,10 @@ public class My_Bookings {
                     case 2:
                         return; // Exit to main menu
                     default:
-                        System.out.println("Invalid choice. Please select 1-2.");
+                        out.println("Invalid choice. Please select 1-2.");
                 }
             } catch (Exception e) {
-                System.out.println("Invalid input! Please enter a number.");
+                out.println("Invalid input! Please enter a number.");
                 scanner.nextLine(); // Clear invalid input
             }
         }
@@ -346,7 +338,7 @@ public class My_Bookings {
 
     // Method to get all bookings (for other classes to access)
     public static ArrayList<Booking> getAllBookings() {
-        return loadAllBookings();
+        return new ArrayList<>(BookingStore.getInstance().getAll());
     }
 
     // Added method for compatibility with main.java
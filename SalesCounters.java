@@ -0,0 +1,181 @@
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+// Live sales counters per movie and per showing.
+// Kept up to date as bookings are made, cancelled, reinstated or change ticket count (by
+// BookingStore) and as seats are held and let go (by SeatReservations), so reading them never
+// scans bookings. Each counter is a LongAdder, which spreads concurrent updates over cells,
+// so a sold-out showing being booked from many sessions does not serialize on one counter.
+// A snapshot reads the current sums; counters of one snapshot are not read atomically together.
+public class SalesCounters {
+    private static SalesCounters instance;
+
+    private final ConcurrentHashMap<String, Counters> byMovie = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<Showing, Counters> byShowing = new ConcurrentHashMap<>();
+    private final Counters total = new Counters();
+
+    public static synchronized SalesCounters getInstance() {
+        if (instance == null) {
+            instance = new SalesCounters();
+        }
+        return instance;
+    }
+
+    // Point-in-time copy of one set of counters
+    public static final class Snapshot {
+        private final long bookings;
+        private final long seatsSold;
+        private final long seatsHeld;
+        private final long revenueCents;
+        private final long cancellations;
+
+        Snapshot(long bookings, long seatsSold, long seatsHeld, long revenueCents, long cancellations) {
+            this.bookings = bookings;
+            this.seatsSold = seatsSold;
+            this.seatsHeld = seatsHeld;
+            this.revenueCents = revenueCents;
+            this.cancellations = cancellations;
+        }
+
+        public long getBookings() { return bookings; }
+        public long getSeatsSold() { return seatsSold; }
+        public long getSeatsHeld() { return seatsHeld; }
+        public long getRevenueCents() { return revenueCents; }
+        public double getRevenue() { return revenueCents / 100.0; }
+        public long getCancellations() { return cancellations; }
+    }
+
+    public Snapshot forMovie(String movieName) {
+        return snapshotOf(byMovie.get(movieName));
+    }
+
+    public Snapshot forShowing(Showing showing) {
+        return snapshotOf(byShowing.get(showing));
+    }
+
+    public Snapshot getTotal() {
+        return total.snapshot();
+    }
+
+    // Every movie's counters, by title
+    public Map<String, Snapshot> getMovies() {
+        Map<String, Snapshot> movies = new TreeMap<>();
+        byMovie.forEach((movie, counters) -> movies.put(movie, counters.snapshot()));
+        return movies;
+    }
+
+    // A booking was loaded or created
+    void onBooked(My_Bookings.Booking booking) {
+        for (Counters counters : countersFor(booking)) {
+            counters.bookings.increment();
+        }
+        count(booking, 1);
+    }
+
+    // A booking that could not be saved was taken back out of the store
+    void onRemoved(My_Bookings.Booking booking) {
+        for (Counters counters : countersFor(booking)) {
+            counters.bookings.decrement();
+        }
+        count(booking, -1);
+    }
+
+    // A booking was swapped for an edited copy of itself
+    void onReplaced(My_Bookings.Booking existing, My_Bookings.Booking updated) {
+        count(existing, -1);
+        count(updated, 1);
+    }
+
+    // A booking was cancelled or reinstated
+    void onStatusChanged(My_Bookings.Booking booking, String oldStatus) {
+        boolean wasCancelled = isCancelled(oldStatus);
+        boolean cancelled = isCancelled(booking.getStatus());
+        if (wasCancelled == cancelled) {
+            return;
+        }
+        int sign = cancelled ? -1 : 1;
+        long cents = cents(booking.getTotalPrice());
+        for (Counters counters : countersFor(booking)) {
+            counters.seatsSold.add(sign * booking.getNumberOfTickets());
+            counters.revenueCents.add(sign * cents);
+            counters.cancellations.add(-sign);
+        }
+    }
+
+    // A booking's ticket count changed
+    void onTicketsChanged(My_Bookings.Booking booking, int oldTickets, double oldTotalPrice) {
+        if (isCancelled(booking.getStatus())) {
+            return; // Cancelled bookings do not count as sold
+        }
+        long tickets = booking.getNumberOfTickets() - oldTickets;
+        long cents = cents(booking.getTotalPrice()) - cents(oldTotalPrice);
+        for (Counters counters : countersFor(booking)) {
+            counters.seatsSold.add(tickets);
+            counters.revenueCents.add(cents);
+        }
+    }
+
+    // Seats were put on hold, or a hold ended (confirmed, released or expired)
+    void onHeld(Showing showing, int seats) {
+        for (Counters counters : countersFor(showing)) {
+            counters.seatsHeld.add(seats);
+        }
+    }
+
+    void onHoldEnded(Showing showing, int seats) {
+        for (Counters counters : countersFor(showing)) {
+            counters.seatsHeld.add(-seats);
+        }
+    }
+
+    // Add (sign 1) or take back (sign -1) what a booking contributes besides the booking count
+    private void count(My_Bookings.Booking booking, int sign) {
+        long cents = cents(booking.getTotalPrice());
+        for (Counters counters : countersFor(booking)) {
+            if (isCancelled(booking.getStatus())) {
+                counters.cancellations.add(sign);
+            } else {
+                counters.seatsSold.add(sign * booking.getNumberOfTickets());
+                counters.revenueCents.add(sign * cents);
+            }
+        }
+    }
+
+    private Counters[] countersFor(My_Bookings.Booking booking) {
+        return countersFor(Showing.of(booking));
+    }
+
+    private Counters[] countersFor(Showing showing) {
+        return new Counters[] {
+            total,
+            byMovie.computeIfAbsent(showing.getMovieName(), k -> new Counters()),
+            byShowing.computeIfAbsent(showing, k -> new Counters())
+        };
+    }
+
+    private static Snapshot snapshotOf(Counters counters) {
+        return counters != null ? counters.snapshot() : new Snapshot(0, 0, 0, 0, 0);
+    }
+
+    private static boolean isCancelled(String status) {
+        return status != null && status.equalsIgnoreCase("Cancelled");
+    }
+
+    private static long cents(double amount) {
+        return Math.round(amount * 100);
+    }
+
+    private static final class Counters {
+        final LongAdder bookings = new LongAdder();
+        final LongAdder seatsSold = new LongAdder();
+        final LongAdder seatsHeld = new LongAdder();
+        final LongAdder revenueCents = new LongAdder();
+        final LongAdder cancellations = new LongAdder();
+
+        Snapshot snapshot() {
+            return new Snapshot(bookings.sum(), seatsSold.sum(), seatsHeld.sum(), revenueCents.sum(), cancellations.sum());
+        }
+    }
+}
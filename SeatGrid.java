@@ -0,0 +1,310 @@
+import java.util.Arrays;
+
+// Seat map for one hall, backed by a primitive bitmap.
+// Seats are addressed by (row, col) or by a dense index row * cols + col. Each row starts on
+// its own 64-bit word so row-level scans can work a word at a time. The free-seat count is kept
+// up to date on every change, so availability counts are O(1).
+//
+// Rows are lettered A-Z, then AA, AB, ... for halls with more than 26 rows; columns start at 1.
+// A seat is free, held (reserved while a customer confirms) or booked.
+// All methods that touch seat state are synchronized on the grid, which is the per-showing lock.
+// Every seat change bumps a version number and is logged in a small ring, so a rendered seat map
+// can be cached against the version and clients can ask which seats changed since they last looked.
+// findBestAvailable picks the best block of adjacent free seats for a group, scanning the rows a
+// word at a time.
+public final class SeatGrid {
+    static final int CHANGE_LOG_SIZE = 512;
+
+    private final int rows;
+    private final int cols;
+    private final int wordsPerRow;
+    private final long[] booked; // Set bit = booked
+    private final long[] held;   // Set bit = held
+    private int freeSeats;
+    private volatile long version = 0; // Written under the grid lock
+    private final int[] changeLog = new int[CHANGE_LOG_SIZE]; // Seat changed by version v at (v - 1) % size
+
+    public SeatGrid(int rows, int cols) {
+        if (rows <= 0 || cols <= 0) {
+            throw new IllegalArgumentException("Hall size must be positive: " + rows + "x" + cols);
+        }
+        this.rows = rows;
+        this.cols = cols;
+        this.wordsPerRow = (cols + 63) >>> 6;
+        this.booked = new long[rows * wordsPerRow];
+        this.held = new long[rows * wordsPerRow];
+        this.freeSeats = rows * cols;
+    }
+
+    public int getRows() { return rows; }
+    public int getCols() { return cols; }
+    public int getCapacity() { return rows * cols; }
+
+    public synchronized int getFreeSeats() {
+        return freeSeats;
+    }
+
+    // Changes with every seat that is booked, held or released
+    public long getVersion() {
+        return version;
+    }
+
+    // Seats changed after the given version (each listed once), or null if the change log
+    // no longer reaches back that far
+    public synchronized int[] changesSince(long sinceVersion) {
+        if (sinceVersion > version || version - sinceVersion > CHANGE_LOG_SIZE) {
+            return null;
+        }
+        int[] seats = new int[(int) (version - sinceVersion)];
+        int count = 0;
+        for (long v = sinceVersion + 1; v <= version; v++) {
+            int seat = changeLog[(int) ((v - 1) % CHANGE_LOG_SIZE)];
+            boolean seen = false;
+            for (int i = 0; i < count && !seen; i++) {
+                seen = seats[i] == seat;
+            }
+            if (!seen) {
+                seats[count++] = seat;
+            }
+        }
+        return Arrays.copyOf(seats, count);
+    }
+
+    public int index(int row, int col) {
+        return row * cols + col;
+    }
+
+    // Free means neither booked nor held
+    public synchronized boolean isAvailable(int index) {
+        return !isSet(booked, index) && !isSet(held, index);
+    }
+
+    public synchronized boolean isBooked(int index) {
+        return isSet(booked, index);
+    }
+
+    // Mark a free seat booked; returns false if it was booked or held
+    public synchronized boolean book(int index) {
+        if (!isAvailable(index)) {
+            return false;
+        }
+        set(booked, index);
+        freeSeats--;
+        changed(index);
+        return true;
+    }
+
+    // Mark a booked seat available again; returns false if it was not booked
+    public synchronized boolean release(int index) {
+        if (!isSet(booked, index)) {
+            return false;
+        }
+        clear(booked, index);
+        freeSeats++;
+        changed(index);
+        return true;
+    }
+
+    // Hold all of the given seats, or none of them if any is already booked or held
+    synchronized boolean tryHold(int[] seats) {
+        for (int i = 0; i < seats.length; i++) {
+            if (!isAvailable(seats[i])) {
+                return false;
+            }
+            for (int j = 0; j < i; j++) {
+                if (seats[j] == seats[i]) {
+                    return false; // Same seat twice
+                }
+            }
+        }
+        for (int seat : seats) {
+            set(held, seat);
+            changed(seat);
+        }
+        freeSeats -= seats.length;
+        return true;
+    }
+
+    // Book all of the given seats, or none of them if any is already booked or held
+    synchronized boolean bookAll(int[] seats) {
+        if (!tryHold(seats)) {
+            return false;
+        }
+        confirmHold(seats);
+        return true;
+    }
+
+    // Turn held seats into booked seats
+    synchronized void confirmHold(int[] seats) {
+        for (int seat : seats) {
+            clear(held, seat);
+            set(booked, seat);
+            changed(seat);
+        }
+    }
+
+    // Give held seats back
+    synchronized void releaseHold(int[] seats) {
+        for (int seat : seats) {
+            clear(held, seat);
+            changed(seat);
+        }
+        freeSeats += seats.length;
+    }
+
+    // The best block of `count` adjacent free seats in one row, or null if no row has one.
+    // Blocks are scored by the distance of their centre from the centre of the hall, so the
+    // middle seats of the middle rows come first; ties go to the front row, then the left.
+    // Each row is walked run by run: the free bits of a word are ~(booked | held), and
+    // numberOfTrailingZeros jumps to the next free or taken seat, so a row costs a few
+    // operations per word and per run of free seats rather than one per seat.
+    public synchronized int[] findBestAvailable(int count) {
+        if (count <= 0 || count > cols || count > freeSeats) {
+            return null;
+        }
+        int centredStart = (cols - count) / 2; // Leftmost start of a block centred on the screen
+        long bestScore = Long.MAX_VALUE;
+        int bestRow = -1;
+        int bestStart = -1;
+        for (int row = 0; row < rows; row++) {
+            // Distances are doubled to stay in whole seats for even and odd block sizes
+            long dy = 2L * row - (rows - 1);
+            if (dy * dy >= bestScore) {
+                if (dy > 0) {
+                    break; // Rows only get further from the centre from here on
+                }
+                continue;
+            }
+            int start = nextColumn(row, 0, true);
+            while (start < cols) {
+                int end = nextColumn(row, start, false);
+                if (end - start >= count) {
+                    // The position in this free run that is closest to the centre
+                    int blockStart = Math.max(start, Math.min(centredStart, end - count));
+                    long dx = 2L * blockStart + count - cols;
+                    long score = dx * dx + dy * dy;
+                    if (score < bestScore) {
+                        bestScore = score;
+                        bestRow = row;
+                        bestStart = blockStart;
+                    }
+                }
+                start = end < cols ? nextColumn(row, end, true) : cols;
+            }
+        }
+        if (bestRow < 0) {
+            return null;
+        }
+        int[] seats = new int[count];
+        for (int i = 0; i < count; i++) {
+            seats[i] = index(bestRow, bestStart + i);
+        }
+        return seats;
+    }
+
+    // Find the best block and hold it in one step, so no other session can take it in between
+    synchronized int[] holdBestAvailable(int count) {
+        int[] seats = findBestAvailable(count);
+        if (seats == null || !tryHold(seats)) {
+            return null;
+        }
+        return seats;
+    }
+
+    // Parse a seat code such as "A1", "j10" or "AB12" to its index, or -1 if it is not a seat
+    // in this hall. Works directly on the characters, so nothing is allocated.
+    public int indexOf(CharSequence code) {
+        if (code == null) {
+            return -1;
+        }
+        int length = code.length();
+        int pos = 0;
+        int row = 0;
+        while (pos < length) {
+            char c = code.charAt(pos);
+            if (c >= 'a' && c <= 'z') {
+                c -= 'a' - 'A';
+            }
+            if (c < 'A' || c > 'Z') {
+                break;
+            }
+            row = row * 26 + (c - 'A' + 1);
+            if (row > rows) {
+                return -1;
+            }
+            pos++;
+        }
+        if (pos == 0 || pos == length) {
+            return -1;
+        }
+        int col = 0;
+        while (pos < length) {
+            char c = code.charAt(pos++);
+            if (c < '0' || c > '9') {
+                return -1;
+            }
+            col = col * 10 + (c - '0');
+            if (col > cols) {
+                return -1;
+            }
+        }
+        if (col < 1) {
+            return -1;
+        }
+        return index(row - 1, col - 1);
+    }
+
+    // Seat code for an index, e.g. 0 -> "A1"
+    public String seatCode(int index) {
+        return rowLabel(index / cols) + (index % cols + 1);
+    }
+
+    public static String rowLabel(int row) {
+        StringBuilder label = new StringBuilder();
+        for (int n = row + 1; n > 0; n = (n - 1) / 26) {
+            label.insert(0, (char) ('A' + (n - 1) % 26));
+        }
+        return label.toString();
+    }
+
+    private void changed(int seat) {
+        changeLog[(int) (version % CHANGE_LOG_SIZE)] = seat;
+        version++;
+    }
+
+    // First column at or after `from` in the row that is free (or taken), or cols if there is none
+    private int nextColumn(int row, int from, boolean free) {
+        int base = row * wordsPerRow;
+        int w = from >>> 6;
+        long bits = seatBits(base + w, free) & (-1L << (from & 63));
+        while (bits == 0) {
+            if (++w == wordsPerRow) {
+                return cols;
+            }
+            bits = seatBits(base + w, free);
+        }
+        // Bits past the last column read as free; clamp them to the end of the row
+        return Math.min(cols, (w << 6) + Long.numberOfTrailingZeros(bits));
+    }
+
+    private long seatBits(int word, boolean free) {
+        long taken = booked[word] | held[word];
+        return free ? ~taken : taken;
+    }
+
+    private int word(int index) {
+        return (index / cols) * wordsPerRow + ((index % cols) >>> 6);
+    }
+
+    private boolean isSet(long[] bits, int index) {
+        return (bits[word(index)] & (1L << (index % cols))) != 0;
+    }
+
+    private void set(long[] bits, int index) {
+        bits[word(index)] |= 1L << (index % cols);
+    }
+
+    private void clear(long[] bits, int index) {
+        bits[word(index)] &= ~(1L << (index % cols));
+    }
+}
@@ -0,0 +1,45 @@
+import java.util.concurrent.atomic.AtomicInteger;
+
+// A time-limited hold on a block of seats for one showing.
+// A hold ends exactly once: it is confirmed, released, or it expires.
+// It carries the ticket price the customer was quoted, which is what confirming it charges.
+public final class SeatHold {
+    static final int HELD = 0;
+    static final int CONFIRMED = 1;
+    static final int RELEASED = 2;
+    static final int EXPIRED = 3;
+
+    private final long holdId;
+    private final Showing showing;
+    private final int[] seats;
+    private final long expiresAtMillis;
+    private final double pricePerTicket;
+    private final AtomicInteger state = new AtomicInteger(HELD);
+
+    SeatHold(long holdId, Showing showing, int[] seats, long expiresAtMillis, double pricePerTicket) {
+        this.holdId = holdId;
+        this.showing = showing;
+        this.seats = seats;
+        this.expiresAtMillis = expiresAtMillis;
+        this.pricePerTicket = pricePerTicket;
+    }
+
+    public long getHoldId() { return holdId; }
+    public Showing getShowing() { return showing; }
+    public int[] getSeats() { return seats.clone(); }
+    public long getExpiresAtMillis() { return expiresAtMillis; }
+    public double getPricePerTicket() { return pricePerTicket; }
+
+    public boolean isActive() {
+        return state.get() == HELD;
+    }
+
+    int[] seats() {
+        return seats;
+    }
+
+    // Move out of HELD; only the first caller wins
+    boolean end(int newState) {
+        return state.compareAndSet(HELD, newState);
+    }
+}
@@ -0,0 +1,140 @@
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Seat inventory keyed by showing (movie, showtime, date).
+// Each showing gets its own SeatGrid, built lazily from the booking store the first time
+// the showing is browsed, so memory only grows with the showings in use.
+// The hall size defaults to 10x10 and can be changed with -Dbooking.hall.rows / -Dbooking.hall.cols.
+public class SeatInventory {
+    public static final int DEFAULT_ROWS = Integer.getInteger("booking.hall.rows", 10);
+    public static final int DEFAULT_COLS = Integer.getInteger("booking.hall.cols", 10);
+
+    private static SeatInventory instance;
+
+    private final BookingStore store;
+    private final ConcurrentHashMap<Showing, SeatGrid> gridsByShowing = new ConcurrentHashMap<>();
+
+    public static synchronized SeatInventory getInstance() {
+        if (instance == null) {
+            instance = new SeatInventory(BookingStore.getInstance());
+        }
+        return instance;
+    }
+
+    SeatInventory(BookingStore store) {
+        this.store = store;
+    }
+
+    // Seat grid for a showing; the grid itself is the lock for that showing.
+    // A missing grid is built under the store lock rather than inside computeIfAbsent: the store
+    // calls back into this class while holding its lock, so holding a map bin while waiting for
+    // the store could deadlock. Building under the store lock also means no status change can
+    // slip in between reading the bookings and publishing the grid.
+    public SeatGrid gridFor(Showing showing) {
+        SeatGrid grid = gridsByShowing.get(showing);
+        if (grid != null) {
+            return grid;
+        }
+        synchronized (store) {
+            grid = gridsByShowing.get(showing);
+            if (grid == null) {
+                grid = loadShowing(showing);
+                gridsByShowing.put(showing, grid);
+            }
+            return grid;
+        }
+    }
+
+    public int getAvailableSeatsCount(Showing showing) {
+        return gridFor(showing).getFreeSeats();
+    }
+
+    // Keep an already-loaded showing in sync when a booking is cancelled. Only a real change
+    // from a live status to Cancelled frees seats, and only the ones no other live booking holds.
+    // Reinstatements go through reclaimSeats instead. Called under the store lock.
+    void onStatusChanged(My_Bookings.Booking booking, String oldStatus) {
+        if (isCancelled(oldStatus) || !isCancelled(booking.getStatus())) {
+            return;
+        }
+        SeatGrid grid = gridsByShowing.get(Showing.of(booking));
+        if (grid == null) {
+            return; // Not browsed yet, it will be built from the store
+        }
+        releaseOwnedSeats(grid, booking);
+    }
+
+    // Take a cancelled booking's seats back when it is reinstated: all of them, or none if
+    // any was sold again after the cancellation
+    boolean reclaimSeats(My_Bookings.Booking booking) {
+        SeatGrid grid = gridFor(Showing.of(booking));
+        return grid.bookAll(seatIndexes(grid, booking.getSeats()));
+    }
+
+    // Undo reclaimSeats when the reinstatement could not be saved
+    void releaseSeats(My_Bookings.Booking booking) {
+        releaseOwnedSeats(gridFor(Showing.of(booking)), booking);
+    }
+
+    // Free a booking's seats, skipping any that another live booking for the showing still holds
+    private void releaseOwnedSeats(SeatGrid grid, My_Bookings.Booking booking) {
+        Showing showing = Showing.of(booking);
+        Set<Integer> heldByOthers = new HashSet<>();
+        for (My_Bookings.Booking other : store.findByMovie(showing.getMovieName())) {
+            if (other.getBookingId() != booking.getBookingId() && !isCancelled(other)
+                    && showing.equals(Showing.of(other))) {
+                for (int index : seatIndexes(grid, other.getSeats())) {
+                    heldByOthers.add(index);
+                }
+            }
+        }
+        for (int index : seatIndexes(grid, booking.getSeats())) {
+            if (!heldByOthers.contains(index)) {
+                grid.release(index);
+            }
+        }
+    }
+
+    // Build a showing's grid from its bookings, using the store's movie index
+    private SeatGrid loadShowing(Showing showing) {
+        SeatGrid grid = new SeatGrid(DEFAULT_ROWS, DEFAULT_COLS);
+        for (My_Bookings.Booking booking : store.findByMovie(showing.getMovieName())) {
+            if (!isCancelled(booking) && showing.equals(Showing.of(booking))) {
+                markSeats(grid, booking.getSeats(), true);
+            }
+        }
+        return grid;
+    }
+
+    private static void markSeats(SeatGrid grid, String seatList, boolean booked) {
+        // Seats are separated by semicolon
+        for (String seat : seatList.split(";")) {
+            int index = grid.indexOf(seat.trim());
+            if (index < 0) {
+                continue;
+            }
+            if (booked) {
+                grid.book(index);
+            } else {
+                grid.release(index);
+            }
+        }
+    }
+
+    private static int[] seatIndexes(SeatGrid grid, String seatList) {
+        return Arrays.stream(seatList.split(";"))
+                .mapToInt(seat -> grid.indexOf(seat.trim()))
+                .filter(index -> index >= 0)
+                .distinct()
+                .toArray();
+    }
+
+    private static boolean isCancelled(My_Bookings.Booking booking) {
+        return isCancelled(booking.getStatus());
+    }
+
+    private static boolean isCancelled(String status) {
+        return "Cancelled".equalsIgnoreCase(status);
+    }
+}
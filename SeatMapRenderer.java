@@ -0,0 +1,133 @@
+import java.util.concurrent.ConcurrentHashMap;
+
+// Renders seat maps once per seat change instead of once per viewer.
+// The whole map for a showing is built into one string and cached against the grid's version;
+// every terminal that looks at an unchanged showing gets the cached text and prints it with a
+// single call. A booking, hold or release bumps the version and the next viewer re-renders.
+//
+// Delta mode (-Dbooking.seatmap.delta=true) lets a session that has already seen a showing's
+// map receive only the seats that changed since then, as long as the grid's change log still
+// covers that version.
+public class SeatMapRenderer {
+    public static final boolean DELTA_MODE = Boolean.getBoolean("booking.seatmap.delta");
+
+    private static SeatMapRenderer instance;
+
+    private final SeatInventory seatInventory;
+    private final ConcurrentHashMap<Showing, SeatMap> cache = new ConcurrentHashMap<>();
+
+    // Rendered text and the grid version it shows
+    public static final class SeatMap {
+        private final long version;
+        private final String text;
+
+        SeatMap(long version, String text) {
+            this.version = version;
+            this.text = text;
+        }
+
+        public long getVersion() { return version; }
+        public String getText() { return text; }
+    }
+
+    public static synchronized SeatMapRenderer getInstance() {
+        if (instance == null) {
+            instance = new SeatMapRenderer(SeatInventory.getInstance());
+        }
+        return instance;
+    }
+
+    SeatMapRenderer(SeatInventory seatInventory) {
+        this.seatInventory = seatInventory;
+    }
+
+    // The full seat map, from the cache unless a seat changed since it was rendered
+    public SeatMap render(Showing showing) {
+        SeatGrid grid = seatInventory.gridFor(showing);
+        SeatMap cached = cache.get(showing);
+        if (cached != null && cached.getVersion() == grid.getVersion()) {
+            return cached;
+        }
+        SeatMap map;
+        synchronized (grid) {
+            map = new SeatMap(grid.getVersion(), renderFull(grid));
+        }
+        // Never replace a newer map with an older one rendered by a slower thread
+        cache.merge(showing, map, (old, fresh) -> fresh.getVersion() >= old.getVersion() ? fresh : old);
+        return map;
+    }
+
+    // Only the seats that changed since the given version, or null when the change log no
+    // longer reaches back that far and the caller should render the full map
+    public SeatMap renderChanges(Showing showing, long sinceVersion) {
+        SeatGrid grid = seatInventory.gridFor(showing);
+        synchronized (grid) {
+            int[] seats = grid.changesSince(sinceVersion);
+            if (seats == null) {
+                return null;
+            }
+            return new SeatMap(grid.getVersion(), renderDelta(grid, seats));
+        }
+    }
+
+    private static String renderFull(SeatGrid grid) {
+        int rows = grid.getRows();
+        int cols = grid.getCols();
+        StringBuilder map = new StringBuilder(400 + rows * (4 + cols * 4));
+        map.append('\n').append("=".repeat(60)).append('\n');
+        map.append("   🪑 THEATER SEATING MAP (").append(rows).append('×').append(cols).append(")\n");
+        map.append("=".repeat(60)).append('\n');
+        map.append("   Legend: [ ] = Available, [X] = Booked\n");
+        map.append("   ").append(" ".repeat(10)).append("SCREEN\n");
+        map.append("   ").append("=".repeat(50)).append('\n');
+
+        // Column numbers, right-aligned in four characters
+        map.append("   ");
+        for (int col = 1; col <= cols; col++) {
+            String number = Integer.toString(col);
+            for (int pad = number.length(); pad < 4; pad++) {
+                map.append(' ');
+            }
+            map.append(number);
+        }
+        map.append('\n');
+
+        for (int row = 0; row < rows; row++) {
+            String label = SeatGrid.rowLabel(row);
+            if (label.length() < 2) {
+                map.append(' ');
+            }
+            map.append(label).append(' ');
+            for (int col = 0; col < cols; col++) {
+                map.append(grid.isAvailable(grid.index(row, col)) ? "[ ] " : "[X] ");
+            }
+            map.append('\n');
+        }
+        map.append("=".repeat(60)).append('\n');
+        return map.toString();
+    }
+
+    private static String renderDelta(SeatGrid grid, int[] seats) {
+        if (seats.length == 0) {
+            return "\n🪑 No seat changes since you last looked (" + grid.getFreeSeats() + " seats free).\n";
+        }
+        StringBuilder taken = new StringBuilder();
+        StringBuilder freed = new StringBuilder();
+        for (int seat : seats) {
+            StringBuilder list = grid.isAvailable(seat) ? freed : taken;
+            if (list.length() > 0) {
+                list.append(", ");
+            }
+            list.append(grid.seatCode(seat));
+        }
+        StringBuilder delta = new StringBuilder(64 + seats.length * 5);
+        delta.append("\n🪑 Seat changes since you last looked (").append(grid.getFreeSeats()).append(" seats free):\n");
+        if (taken.length() > 0) {
+            delta.append("   [X] Now taken    : ").append(taken).append('\n');
+        }
+        if (freed.length() > 0) {
+            delta.append("   [ ] Now available: ").append(freed).append('\n');
+        }
+        return delta.toString();
+    }
+}
@@ -0,0 +1,103 @@
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+// Reservation engine with hold / confirm / release semantics.
+// Holds are all-or-nothing over a block of seats and are taken under the showing's own
+// SeatGrid lock, so two sessions can never sell the same seat and busy showings do not
+// block each other. A hold that is never confirmed expires on its own after the hold time
+// (5 minutes by default, -Dbooking.hold.seconds to change).
+public class SeatReservations {
+    public static final long DEFAULT_HOLD_MILLIS = TimeUnit.SECONDS.toMillis(Long.getLong("booking.hold.seconds", 300));
+
+    private static SeatReservations instance;
+
+    private final SeatInventory inventory;
+    private final SalesCounters sales = SalesCounters.getInstance();
+    private final AtomicLong nextHoldId = new AtomicLong(1);
+    private final LongAdder expiredHolds = new LongAdder();
+    private final ScheduledExecutorService expirer = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "seat-hold-expirer");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public static synchronized SeatReservations getInstance() {
+        if (instance == null) {
+            instance = new SeatReservations(SeatInventory.getInstance());
+        }
+        return instance;
+    }
+
+    SeatReservations(SeatInventory inventory) {
+        this.inventory = inventory;
+    }
+
+    // Hold every seat in the block, or none of them, at the quoted price per ticket.
+    // Returns null if any seat is taken.
+    public SeatHold hold(Showing showing, int[] seats, double pricePerTicket) {
+        return hold(showing, seats, DEFAULT_HOLD_MILLIS, pricePerTicket);
+    }
+
+    public SeatHold hold(Showing showing, int[] seats, long holdMillis, double pricePerTicket) {
+        SeatGrid grid = inventory.gridFor(showing);
+        int[] block = seats.clone();
+        if (block.length == 0 || !grid.tryHold(block)) {
+            return null;
+        }
+        return track(showing, block, holdMillis, pricePerTicket);
+    }
+
+    // Pick the best block of adjacent free seats (see SeatGrid.findBestAvailable) and hold it.
+    // Returns null if no row has that many free seats together.
+    public SeatHold holdBestAvailable(Showing showing, int count, long holdMillis, double pricePerTicket) {
+        int[] block = inventory.gridFor(showing).holdBestAvailable(count);
+        if (block == null) {
+            return null;
+        }
+        return track(showing, block, holdMillis, pricePerTicket);
+    }
+
+    // Record freshly held seats and schedule their expiry
+    private SeatHold track(Showing showing, int[] block, long holdMillis, double pricePerTicket) {
+        sales.onHeld(showing, block.length);
+        SeatHold hold = new SeatHold(nextHoldId.getAndIncrement(), showing, block,
+                System.currentTimeMillis() + holdMillis, pricePerTicket);
+        expirer.schedule(() -> expire(hold), holdMillis, TimeUnit.MILLISECONDS);
+        return hold;
+    }
+
+    // Turn the held seats into booked seats. Returns false if the hold already expired or was released.
+    public boolean confirm(SeatHold hold) {
+        if (!hold.end(SeatHold.CONFIRMED)) {
+            return false;
+        }
+        inventory.gridFor(hold.getShowing()).confirmHold(hold.seats());
+        sales.onHoldEnded(hold.getShowing(), hold.seats().length); // Counted as sold once the booking is saved
+        return true;
+    }
+
+    // Give the seats back without booking them. Returns false if the hold had already ended.
+    public boolean release(SeatHold hold) {
+        if (!hold.end(SeatHold.RELEASED)) {
+            return false;
+        }
+        inventory.gridFor(hold.getShowing()).releaseHold(hold.seats());
+        sales.onHoldEnded(hold.getShowing(), hold.seats().length);
+        return true;
+    }
+
+    public long getExpiredHoldCount() {
+        return expiredHolds.sum();
+    }
+
+    private void expire(SeatHold hold) {
+        if (hold.end(SeatHold.EXPIRED)) {
+            inventory.gridFor(hold.getShowing()).releaseHold(hold.seats());
+            sales.onHoldEnded(hold.getShowing(), hold.seats().length);
+            expiredHolds.increment();
+        }
+    }
+}
@@ -0,0 +1,136 @@
+import java.security.SecureRandom;
+import java.util.Base64;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+// Logged-in sessions, one per terminal.
+// A successful login or sign-up creates a Session holding the authenticated user and hands out
+// an opaque token (32 random bytes from SecureRandom). Screens keep only the token and resolve it
+// here whenever they need to know who is at the terminal, so many users can be logged in at once.
+//
+// The cache is bounded: it keeps sessions in least-recently-used order, evicts the oldest when
+// it is full, and drops sessions that have been idle longer than the time-to-live.
+// -Dbooking.session.max (default 10000) and -Dbooking.session.ttl.minutes (default 30) tune it.
+public class SessionManager {
+    static final int MAX_SESSIONS = Integer.getInteger("booking.session.max", 10000);
+    static final long TTL_MILLIS = TimeUnit.MINUTES.toMillis(Long.getLong("booking.session.ttl.minutes", 30));
+    private static final int TOKEN_BYTES = 32;
+
+    private static SessionManager instance;
+
+    private final SecureRandom random = new SecureRandom();
+    private final int maxSessions;
+    private final long ttlMillis;
+    // Access-ordered: iteration starts at the least recently used session
+    private final LinkedHashMap<String, Session> sessions = new LinkedHashMap<>(64, 0.75f, true);
+
+    // The authenticated user behind a token
+    public static final class Session {
+        private final String token;
+        private final int userId;
+        private final String email;
+        private final String clientAddress;
+        private final long createdAtMillis;
+        private volatile long lastAccessMillis;
+
+        Session(String token, int userId, String email, String clientAddress, long now) {
+            this.token = token;
+            this.userId = userId;
+            this.email = email;
+            this.clientAddress = clientAddress;
+            this.createdAtMillis = now;
+            this.lastAccessMillis = now;
+        }
+
+        public String getToken() { return token; }
+        public int getUserId() { return userId; }
+        public String getEmail() { return email; }
+        public String getClientAddress() { return clientAddress; } // "console" or the terminal's address (see BookingServer.clientAddress)
+        public long getCreatedAtMillis() { return createdAtMillis; }
+
+        // Whether a booking belongs to this session's user
+        public boolean owns(My_Bookings.Booking booking) {
+            return booking != null && BookingStore.emailKey(booking.getCustomerEmail()).equals(BookingStore.emailKey(email));
+        }
+    }
+
+    public static synchronized SessionManager getInstance() {
+        if (instance == null) {
+            instance = new SessionManager(MAX_SESSIONS, TTL_MILLIS);
+        }
+        return instance;
+    }
+
+    SessionManager(int maxSessions, long ttlMillis) {
+        this.maxSessions = Math.max(1, maxSessions);
+        this.ttlMillis = ttlMillis;
+    }
+
+    // Start a session for a user who just logged in or signed up
+    public Session create(int userId, String email, String clientAddress) {
+        byte[] bytes = new byte[TOKEN_BYTES];
+        random.nextBytes(bytes);
+        String token = Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+        long now = System.currentTimeMillis();
+        Session session = new Session(token, userId, email, clientAddress, now);
+        synchronized (sessions) {
+            evictExpired(now);
+            if (sessions.size() >= maxSessions) {
+                Iterator<Session> oldest = sessions.values().iterator();
+                oldest.next();
+                oldest.remove();
+            }
+            sessions.put(token, session);
+        }
+        return session;
+    }
+
+    // The live session for a token, or null if it is unknown, logged out or expired.
+    // Each lookup counts as activity and keeps the session alive.
+    public Session get(String token) {
+        if (token == null) {
+            return null;
+        }
+        long now = System.currentTimeMillis();
+        synchronized (sessions) {
+            Session session = sessions.get(token);
+            if (session == null) {
+                return null;
+            }
+            if (now - session.lastAccessMillis > ttlMillis) {
+                sessions.remove(token);
+                return null;
+            }
+            session.lastAccessMillis = now;
+            return session;
+        }
+    }
+
+    public void invalidate(String token) {
+        if (token == null) {
+            return;
+        }
+        synchronized (sessions) {
+            sessions.remove(token);
+        }
+    }
+
+    public int size() {
+        synchronized (sessions) {
+            return sessions.size();
+        }
+    }
+
+    // Idle sessions sit at the front of the access order, so stop at the first live one
+    private void evictExpired(long now) {
+        Iterator<Map.Entry<String, Session>> entries = sessions.entrySet().iterator();
+        while (entries.hasNext()) {
+            if (now - entries.next().getValue().lastAccessMillis <= ttlMillis) {
+                return;
+            }
+            entries.remove();
+        }
+    }
+}
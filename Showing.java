@@ -0,0 +1,46 @@
+import java.util.Objects;
+
+// One screening of a movie: (movie, showtime, date).
+// Used as the key for per-showing seat inventory.
+public final class Showing {
+    private final String movieName;
+    private final String showtime;
+    private final String date; // yyyy-MM-dd
+
+    public Showing(String movieName, String showtime, String date) {
+        this.movieName = movieName;
+        this.showtime = showtime;
+        this.date = date;
+    }
+
+    // The showing a booking was made for
+    public static Showing of(My_Bookings.Booking booking) {
+        return new Showing(booking.getMovieName(), booking.getShowtime(), booking.getBookingDay());
+    }
+
+    public String getMovieName() { return movieName; }
+    public String getShowtime() { return showtime; }
+    public String getDate() { return date; }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof Showing)) {
+            return false;
+        }
+        Showing other = (Showing) o;
+        return movieName.equals(other.movieName) && showtime.equals(other.showtime) && date.equals(other.date);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(movieName, showtime, date);
+    }
+
+    @Override
+    public String toString() {
+        return movieName + " @ " + showtime + " on " + date;
+    }
+}
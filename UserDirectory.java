@@ -0,0 +1,156 @@
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Registered users, loaded from users.csv once.
+// Keeps a case-insensitive email -> user hash index and the highest user ID in memory,
+// so login and the email-exists check are O(1) and sign-up never rescans the file.
+//
+// Format: UserID,Email,Password,Name,Date,Time (new format)
+//     Or: Email,Password,Name,Date,Time (old format, no user ID)
+// A later row for the same email supersedes an earlier one; password upgrades are appended
+// this way instead of rewriting the file.
+public class UserDirectory {
+    static final String USERS_FILE = "users.csv";
+
+    private static UserDirectory instance;
+
+    private final String usersFile;
+    private final ConcurrentHashMap<String, UserRecord> byEmail = new ConcurrentHashMap<>();
+    private int maxUserId = 0;
+
+    // One registered account
+    public static class UserRecord {
+        private final int userId; // -1 for old-format rows
+        private final String email;
+        private final String password;
+        private final String name;
+        private final String date;
+        private final String time;
+
+        UserRecord(int userId, String email, String password, String name, String date, String time) {
+            this.userId = userId;
+            this.email = email;
+            this.password = password;
+            this.name = name;
+            this.date = date;
+            this.time = time;
+        }
+
+        public int getUserId() { return userId; }
+        public String getEmail() { return email; }
+        public String getPassword() { return password; } // PBKDF2 hash, or plaintext for rows not yet migrated
+        public String getName() { return name; }
+        public String getDate() { return date; }
+        public String getTime() { return time; }
+    }
+
+    public static synchronized UserDirectory getInstance() {
+        if (instance == null) {
+            instance = new UserDirectory(USERS_FILE);
+        }
+        return instance;
+    }
+
+    UserDirectory(String usersFile) {
+        this.usersFile = usersFile;
+        load();
+    }
+
+    public UserRecord find(String email) {
+        return byEmail.get(emailKey(email));
+    }
+
+    public boolean exists(String email) {
+        return byEmail.containsKey(emailKey(email));
+    }
+
+    // Next free user ID, without reserving it
+    public synchronized int nextUserId() {
+        return maxUserId + 1;
+    }
+
+    public int size() {
+        return byEmail.size();
+    }
+
+    // Append a new account and index it. Returns null if the email is already registered.
+    public synchronized UserRecord register(String email, String password, String name) throws IOException {
+        if (exists(email)) {
+            return null;
+        }
+        LocalDateTime now = LocalDateTime.now();
+        String date = now.format(DateTimeFormatter.ofPattern("yyyy-MM-dd"));
+        String time = now.format(DateTimeFormatter.ofPattern("HH:mm:ss"));
+        UserRecord user = new UserRecord(maxUserId + 1, email, password, name, date, time);
+        append(user);
+        return user;
+    }
+
+    // Replace a user's stored password (e.g. plaintext -> hash) by appending a superseding row.
+    // Old-format users get a permanent user ID at the same time.
+    public synchronized UserRecord updatePassword(UserRecord user, String newPassword) throws IOException {
+        int userId = user.getUserId() >= 0 ? user.getUserId() : maxUserId + 1;
+        UserRecord updated = new UserRecord(userId, user.getEmail(), newPassword, user.getName(), user.getDate(), user.getTime());
+        append(updated);
+        return updated;
+    }
+
+    private void append(UserRecord user) throws IOException {
+        try (FileWriter write = new FileWriter(usersFile, StandardCharsets.UTF_8, true)) {
+            new CsvWriter(write).writeRow(String.valueOf(user.getUserId()), user.getEmail(), user.getPassword(),
+                    user.getName(), user.getDate(), user.getTime());
+        }
+        byEmail.put(emailKey(user.getEmail()), user);
+        maxUserId = Math.max(maxUserId, user.getUserId());
+    }
+
+    private void load() {
+        File file = new File(usersFile);
+        if (!file.exists()) {
+            return;
+        }
+
+        try (CsvReader reader = new CsvReader(new BufferedReader(new FileReader(file, StandardCharsets.UTF_8)))) {
+            while (reader.next()) {
+                UserRecord user;
+                if (reader.fieldCount() >= 6) {
+                    int userId;
+                    try {
+                        userId = reader.getInt(0);
+                    } catch (NumberFormatException e) {
+                        userId = -1;
+                    }
+                    user = new UserRecord(userId, reader.getString(1), reader.getString(2), reader.getString(3),
+                            reader.getString(4), reader.getString(5));
+                } else if (reader.fieldCount() >= 2) {
+                    user = new UserRecord(-1, reader.getString(0), reader.getString(1), field(reader, 2), field(reader, 3), field(reader, 4));
+                } else {
+                    continue;
+                }
+
+                if (user.getUserId() > maxUserId) {
+                    maxUserId = user.getUserId();
+                }
+                byEmail.put(emailKey(user.getEmail()), user);
+            }
+        } catch (IOException e) {
+            System.out.println("❌ Error reading user file: " + e.getMessage());
+        }
+    }
+
+    private static String field(CsvReader reader, int index) {
+        return reader.fieldCount() > index ? reader.getString(index) : "";
+    }
+
+    static String emailKey(String email) {
+        return email == null ? "" : email.trim().toLowerCase(Locale.ROOT);
+    }
+}
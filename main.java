@@ -1,53 +1,26 @@
 import java.util.Scanner;
 public class main 
 { 
+    // Run with no arguments for the local console, or with "--server [port]" to serve many terminals
     public static void main(String[] args) 
     {
-        Scanner user_input = new Scanner(System.in);
-        Display_Menu menu = new Display_Menu();
-        BookingTickets booking = new BookingTickets();
-        Cancel_booking cancel = new Cancel_booking();
-        My_Bookings myBookings = new My_Bookings();
-        User_authen auth = new User_authen();
-        auth.sign_up();
-        try 
+        if (args.length > 0 && args[0].equals("--server"))
         {
-            while (true)
+            int port = args.length > 1 ? Integer.parseInt(args[1]) : BookingServer.DEFAULT_PORT;
+            try 
             {
-                int choice;
-                    menu.showMenu();
-                    System.out.println("-------------------------");
-                    System.out.print("Enter your choice: ");
-                    choice = user_input.nextInt();
-                    switch(choice)
-                    {
-                        case 1: 
-                            booking.browseAndBookTickets();
-                            
-                            break;
-                        case 2: 
-                            myBookings.viewMyBookings();
-                            break;
-                        case 3: 
-                            cancel.cancelBooking();
-                            break;
-                        case 4: 
-                            System.out.println("Exiting the application. Goodbye!");
-                            System.exit(0);
-                            user_input.close();
-                            break;
-                        default:
-                            System.out.println("Invalid choice. Please try again.");    
-                }
-                
-                
+                new BookingServer(port).serve();
             }
-            
-        }
-        catch (Exception e)
-        {
-            System.out.println("An error occurred: " + e.getMessage());
+            catch (Exception e)
+            {
+                System.out.println("An error occurred: " + e.getMessage());
+            }
+            return;
         }
         
+        CatalogueWatcher.start(); // Pick up movies.csv edits without a restart
+        Scanner user_input = new Scanner(System.in);
+        new MenuSession(user_input, System.out).run();
+        user_input.close();
     }
 }